@@ -0,0 +1,33 @@
+package instaclone;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Runs Main on an input file and reports the bytes it allocated and the collections it caused,
+ * to compare the garbage produced by different versions of the command path.
+ * Usage: java instaclone.AllocationProbe <input_file> <output_file> [pull|push|hybrid]
+ */
+public class AllocationProbe {
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long[] gcBefore = gcTotals();
+        long start = System.nanoTime();
+        Main.main(args);
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long[] gcAfter = gcTotals();
+        System.out.printf("%.0f ms, allocated %.1f MB, %d collections, %d ms in GC%n",
+                nanos / 1e6, allocated / 1e6, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    private static long[] gcTotals() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
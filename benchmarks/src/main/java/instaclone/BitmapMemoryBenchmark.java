@@ -0,0 +1,95 @@
+package instaclone;
+
+import java.util.Random;
+
+/**
+ * Heap cost of one user's seen-posts set after 1K, 100K and 10M interactions, comparing the
+ * original HashMap<String,Post> with IntHashSet and RoaringBitmap over dense post indexes.
+ * Two access patterns: random posts out of 20M, and a run of recent (consecutive) posts.
+ * Costs are measured as retained-heap deltas; ID strings and posts are allocated beforehand,
+ * since they belong to the posts and not to the set. Small sets are averaged over many copies.
+ * Usage: java -Xmx6g -XX:+UseSerialGC instaclone.BitmapMemoryBenchmark [interactions...]
+ * (the serial collector makes the used-heap figures exact after System.gc)
+ */
+public class BitmapMemoryBenchmark {
+    private static final int UNIVERSE = 20_000_000;
+    /** Results are written here so the JIT cannot drop the measured work. */
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] sizes = args.length == 0 ? new int[]{1_000, 100_000, 10_000_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        for (int n : sizes) {
+            int[] random = new int[n];
+            Random rnd = new Random(n);
+            for (int i = 0; i < n; i++) random[i] = rnd.nextInt(UNIVERSE);
+            int[] recent = new int[n];
+            for (int i = 0; i < n; i++) recent[i] = UNIVERSE - n + i;
+            report("random n=" + n, random);
+            report("recent n=" + n, recent);
+        }
+    }
+
+    private static void report(String name, int[] seen) throws InterruptedException {
+        String[] ids = new String[seen.length];
+        for (int i = 0; i < seen.length; i++) ids[i] = "post" + seen[i];
+        Post post = new Post("post", new User("user"), "content", 0);
+        // small sets are built many times over so the heap delta is not lost in noise
+        int copies = Math.max(1, 1_000_000 / seen.length);
+
+        long before = usedHeap();
+        Object[] maps = new Object[copies];
+        for (int c = 0; c < copies; c++) {
+            HashMap<String, Post> map = new HashMap<>();
+            for (String id : ids) map.put(id, post);
+            maps[c] = map;
+        }
+        long mapBytes = (usedHeap() - before) / copies;
+        sink = maps;
+        sink = maps = null;
+
+        before = usedHeap();
+        Object[] sets = new Object[copies];
+        for (int c = 0; c < copies; c++) {
+            IntHashSet set = new IntHashSet();
+            for (int s : seen) set.add(s);
+            sets[c] = set;
+        }
+        long setBytes = (usedHeap() - before) / copies;
+        sink = sets;
+        sink = sets = null;
+
+        // bitmaps can be so small that even a single large one needs copies to stand out of the noise
+        RoaringBitmap probe = new RoaringBitmap();
+        for (int s : seen) probe.add(s);
+        int bitmapCopies = (int) Math.max(copies, (64L << 20) / Math.max(1, probe.sizeInBytes()));
+        probe = null;
+        before = usedHeap();
+        RoaringBitmap[] bitmaps = new RoaringBitmap[bitmapCopies];
+        for (int c = 0; c < bitmapCopies; c++) {
+            bitmaps[c] = new RoaringBitmap();
+            for (int s : seen) bitmaps[c].add(s);
+        }
+        long bitmapBytes = (usedHeap() - before) / bitmapCopies;
+        RoaringBitmap bitmap = bitmaps[0];
+        sink = bitmaps;
+        sink = bitmaps = null;
+
+        // keep the inputs reachable, or the JIT may let them be collected mid-measurement
+        java.lang.ref.Reference.reachabilityFence(ids);
+        java.lang.ref.Reference.reachabilityFence(post);
+        int distinct = bitmap.cardinality();
+        System.out.printf("%-22s distinct %9d  HashMap %5.1f B/entry  IntHashSet %5.1f B/entry  RoaringBitmap %5.2f B/entry (estimate %5.2f)%n",
+                name, distinct, (double) mapBytes / distinct, (double) setBytes / distinct,
+                (double) bitmapBytes / distinct, (double) bitmap.sizeInBytes() / distinct);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
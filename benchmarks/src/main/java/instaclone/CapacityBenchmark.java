@@ -0,0 +1,47 @@
+package instaclone;
+
+/**
+ * Measures what the table-size policy costs and allows.
+ * startup: time of the first map growth in a fresh JVM. ChainedHashMap pays for loading Primes
+ *          (a sieve of two million numbers into an AvlTree); HashMap only doubles its arrays.
+ * max:     grows each map one key at a time until it fails or reaches the limit.
+ * Usage: java instaclone.CapacityBenchmark startup | max [limit]
+ * Run startup in its own JVM, since class loading happens only once.
+ */
+public class CapacityBenchmark {
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "startup";
+        if (mode.equals("startup")) {
+            long start = System.nanoTime();
+            HashMap<Integer, Integer> open = new HashMap<>();
+            for (int i = 0; i < 100; i++) open.put(i, i);
+            long openTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            ChainedHashMap<Integer, Integer> chained = new ChainedHashMap<>();
+            for (int i = 0; i < 100; i++) chained.put(i, i);
+            long chainedTime = System.nanoTime() - start;
+            System.out.printf("first growth: HashMap %.3f ms, ChainedHashMap %.3f ms%n", openTime / 1e6, chainedTime / 1e6);
+        } else {
+            int limit = args.length > 1 ? Integer.parseInt(args[1]) : 50_000_000;
+            System.out.println("HashMap reached " + fill(new HashMap<>(), limit) + " entries");
+            ChainedHashMap<Integer, Integer> chained = new ChainedHashMap<>();
+            int n = 0;
+            try {
+                for (; n < limit; n++) chained.put(n, n);
+            } catch (RuntimeException e) {
+                System.out.println("ChainedHashMap failed: " + e);
+            }
+            System.out.println("ChainedHashMap reached " + n + " entries");
+        }
+    }
+
+    private static int fill(HashMap<Integer, Integer> map, int limit) {
+        int n = 0;
+        try {
+            for (; n < limit; n++) map.put(n, n);
+        } catch (RuntimeException e) {
+            System.out.println("HashMap failed: " + e);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,92 @@
+package instaclone;
+
+import java.util.Random;
+
+/**
+ * Runs a mixed workload over a follow graph with Zipfian popularity, so a handful of users
+ * have most of the followers, and times each command type under one feed mode.
+ * Authors to follow and posts to like are drawn from the same distribution; posting users
+ * and readers are uniform. Run it once per mode, since users and posts are global:
+ * Usage: java -Xmx4g instaclone.HybridFeedBenchmark pull|push|hybrid [users] [followsPerUser] [ops] [celebrityFollowers]
+ */
+public class HybridFeedBenchmark {
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final int POSTS_PER_USER = 5;
+    private static final int FEED_SIZE = 10;
+    /** Results are written here so the JIT cannot drop the measured work. */
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        User.feedMode = FeedMode.valueOf(args[0].toUpperCase());
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int follows = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int ops = args.length > 3 ? Integer.parseInt(args[3]) : 200_000;
+        if (args.length > 4) User.CELEBRITY_FOLLOWERS = Integer.parseInt(args[4]);
+
+        Random random = new Random(42);
+        double[] cdf = zipfCdf(users);
+        User[] all = new User[users];
+        for (int i = 0; i < users; i++) {
+            User.createUser("user" + i);
+            all[i] = User.getUser("user" + i);
+        }
+        int postCount = 0;
+        for (User u : all)
+            for (int p = 0; p < POSTS_PER_USER; p++)
+                Post.createPost("post" + postCount++, u, "content");
+        for (User u : all)
+            for (int f = 0; f < follows; f++)
+                u.followUser(all[sample(cdf, random)]);
+        int celebrities = 0;
+        for (User u : all) if (u.celebrity) celebrities++;
+        System.out.printf("%s: %d users, %d follows each, most followed has %d followers, %d celebrities%n",
+                User.feedMode, users, follows, all[0].followerCount(), celebrities);
+
+        String[] names = {"create_post", "toggle_like", "generate_feed"};
+        long[] time = new long[3];
+        int[] count = new int[3];
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            int roll = random.nextInt(10);
+            int type = roll == 0 ? 0 : roll < 4 ? 1 : 2; // 10% posts, 30% likes, 60% feed reads
+            User user = all[random.nextInt(users)];
+            long t = System.nanoTime();
+            if (type == 0) {
+                Post.createPost("post" + postCount++, user, "content");
+            } else if (type == 1) {
+                User author = all[sample(cdf, random)];
+                author.posts.get(random.nextInt(author.posts.size())).like(user);
+            } else {
+                sink = user.generateFeed(FEED_SIZE);
+            }
+            time[type] += System.nanoTime() - t;
+            count[type]++;
+        }
+        long total = System.nanoTime() - start;
+        for (int type = 0; type < 3; type++)
+            System.out.printf("  %-14s %8d ops  %10.1f us/op%n", names[type], count[type], time[type] / 1e3 / count[type]);
+        System.out.printf("  %-14s %8d ops  %10.1f ms%n", "total", ops, total / 1e6);
+    }
+
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+    // rank drawn from the distribution, 0 being the most popular
+    private static int sample(double[] cdf, Random random) {
+        double u = random.nextDouble();
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,115 @@
+package instaclone;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Drives a running Server over localhost and reports requests per second and latency
+ * percentiles. A setup connection creates users, posts and follows, then each client
+ * connection, on its own virtual thread, sends requests one at a time and times each round
+ * trip: a mix of generate_feed, toggle_like, see_post, follower_count and create_post.
+ * Usage: java instaclone.LoadGenerator <port> [connections] [requestsPerConnection] [users]
+ */
+public class LoadGenerator {
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        String run = Long.toString(System.nanoTime(), 36); // fresh IDs against a long-running server
+        int posts = users * 2;
+
+        long setupStart = System.nanoTime();
+        try (Client setup = new Client(port)) {
+            Random random = new Random(42);
+            for (int u = 0; u < users; u++) setup.send("create_user " + run + "u" + u);
+            for (int p = 0; p < posts; p++) setup.send("create_post " + run + "u" + random.nextInt(users) + " " + run + "p" + p + " hello");
+            for (int u = 0; u < users; u++)
+                for (int f = 0; f < 20; f++) setup.send("follow_user " + run + "u" + u + " " + run + "u" + random.nextInt(users));
+        }
+        System.out.printf("setup: %d users, %d posts, %d follows in %.0f ms%n",
+                users, posts, users * 20, (System.nanoTime() - setupStart) / 1e6);
+
+        long[][] latencies = new long[connections][requests];
+        Thread[] clients = new Thread[connections];
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            long[] times = latencies[c];
+            int id = c;
+            clients[c] = Thread.ofVirtual().start(() -> {
+                Random random = new Random(id);
+                try (Client client = new Client(port)) {
+                    for (int i = 0; i < requests; i++) {
+                        String user = run + "u" + random.nextInt(users);
+                        String post = run + "p" + random.nextInt(posts);
+                        int kind = random.nextInt(100);
+                        String request;
+                        if (kind < 40) request = "generate_feed " + user + " 10";
+                        else if (kind < 65) request = "toggle_like " + user + " " + post;
+                        else if (kind < 85) request = "see_post " + user + " " + post;
+                        else if (kind < 95) request = "follower_count " + user;
+                        else request = "create_post " + user + " " + run + "c" + id + "-" + i + " hello";
+                        long sent = System.nanoTime();
+                        client.send(request);
+                        times[i] = System.nanoTime() - sent;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        for (Thread client : clients) client.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[connections * requests];
+        for (int c = 0; c < connections; c++) System.arraycopy(latencies[c], 0, all, c * requests, requests);
+        Arrays.sort(all);
+        System.out.printf("%d connections x %d requests: %.0f requests/s, latency p50 %.0f us, p99 %.0f us, p99.9 %.0f us, max %.0f us%n",
+                connections, requests, all.length / seconds, percentile(all, 0.50), percentile(all, 0.99),
+                percentile(all, 0.999), all[all.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e3;
+    }
+
+    /**
+     * One connection, sending a command and reading its response up to the empty line.
+     */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final OutputStream out;
+        private final ArrayList<String> response = new ArrayList<>();
+
+        Client(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        ArrayList<String> send(String command) throws IOException {
+            out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            response.clear();
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) response.add(line);
+            if (line == null) throw new IOException("Server closed the connection");
+            return response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package instaclone;
+
 /**
  * This class is a custom implementation of a singly linked list to store in HashMap.
  * @param <K>
@@ -1,3 +1,5 @@
+package instaclone;
+
 /**
  * Node class for LinkedList
  * @param <T> key
@@ -0,0 +1,130 @@
+package instaclone;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Times reading and tokenizing a command file, without running the commands: the original
+ * readLine + split(" ") + parseInt loop against CommandReader. It writes a file of the given
+ * number of lines with the command mix of a typical input to a temporary directory first.
+ * Usage: java instaclone.ParserBenchmark [lines]
+ */
+public class ParserBenchmark {
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path file = Files.createTempFile("commands", ".txt");
+        try {
+            write(file, lines);
+            System.out.printf("%d lines, %.1f MB%n", lines, Files.size(file) / 1e6);
+            for (int round = 0; round < 3; round++) { // the first rounds warm up the JIT and the page cache
+                boolean report = round == 2;
+                long start = System.nanoTime();
+                long checksum = splitLines(file);
+                report("readLine + split", lines, System.nanoTime() - start, checksum, report);
+                start = System.nanoTime();
+                checksum = commandReader(file);
+                report("CommandReader", lines, System.nanoTime() - start, checksum, report);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(String name, int lines, long nanos, long checksum, boolean report) {
+        if (report)
+            System.out.printf("%-20s %8.0f ms  %6.2f M commands/s  (checksum %d)%n",
+                    name, nanos / 1e6, lines / (nanos / 1e9) / 1e6, checksum);
+    }
+
+    private static void write(Path file, int lines) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                String user = "user" + random.nextInt(100_000);
+                String other = "user" + random.nextInt(100_000);
+                String post = "post" + random.nextInt(1_000_000);
+                int roll = random.nextInt(20);
+                if (roll < 3) writer.write("create_post " + user + " " + post + " content" + i);
+                else if (roll < 6) writer.write("follow_user " + user + " " + other);
+                else if (roll < 10) writer.write("toggle_like " + user + " " + post);
+                else if (roll < 13) writer.write("see_post " + user + " " + post);
+                else if (roll < 16) writer.write("generate_feed " + user + " " + (1 + random.nextInt(20)));
+                else if (roll < 18) {
+                    int num = 1 + random.nextInt(20);
+                    StringBuilder line = new StringBuilder("scroll_through_feed ").append(user).append(' ').append(num);
+                    for (int j = 0; j < num; j++) line.append(' ').append(random.nextInt(2));
+                    writer.write(line.toString());
+                }
+                else if (roll < 19) writer.write("sort_posts " + user);
+                else writer.write("create_user " + user);
+                writer.newLine();
+            }
+        }
+    }
+
+    // the original tokenizing loop of Main
+    private static long splitLines(Path file) throws IOException {
+        long checksum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] words = line.split(" ");
+                switch (words[0]) {
+                    case "generate_feed":
+                        checksum += words[1].length() + Integer.parseInt(words[2]);
+                        break;
+                    case "scroll_through_feed":
+                        int num = Integer.parseInt(words[2]);
+                        checksum += words[1].length() + num;
+                        for (int i = 0; i < num; i++) checksum += Integer.parseInt(words[i + 3]);
+                        break;
+                    case "create_user":
+                    case "sort_posts":
+                        checksum += words[1].length();
+                        break;
+                    case "create_post":
+                        checksum += words[1].length() + words[2].length() + words[3].length();
+                        break;
+                    default:
+                        checksum += words[1].length() + words[2].length();
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static long commandReader(Path file) throws IOException {
+        long checksum = 0;
+        try (CommandReader reader = new CommandReader(file)) {
+            Command command;
+            while ((command = reader.nextCommand()) != null) {
+                switch (command) {
+                    case GENERATE_FEED:
+                        checksum += reader.nextWord().length() + reader.nextInt();
+                        break;
+                    case SCROLL_THROUGH_FEED:
+                        checksum += reader.nextWord().length();
+                        int num = reader.nextInt();
+                        checksum += num;
+                        for (int i = 0; i < num; i++) checksum += reader.nextInt();
+                        break;
+                    case CREATE_USER:
+                    case SORT_POSTS:
+                        checksum += reader.nextWord().length();
+                        break;
+                    case CREATE_POST:
+                        checksum += reader.nextWord().length() + reader.nextWord().length() + reader.nextWord().length();
+                        break;
+                    default:
+                        checksum += reader.nextWord().length() + reader.nextWord().length();
+                }
+            }
+        }
+        return checksum;
+    }
+}
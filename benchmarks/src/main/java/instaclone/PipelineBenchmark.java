@@ -0,0 +1,96 @@
+package instaclone;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Measures a running Server on bursts of see_post and toggle_like from one user at a time,
+ * the traffic batching is meant for, with the client pipelining 1, 16 and 256 requests per
+ * round trip. Every batch size replays the same request stream on the same state: each burst
+ * toggles every like an even number of times, so the likes return to where they started.
+ * Usage: java instaclone.PipelineBenchmark <port> [connections] [requestsPerConnection] [users]
+ */
+public class PipelineBenchmark {
+    private static final int[] BATCHES = {1, 16, 256};
+    private static final int BURST = 32;
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 32_768;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        String run = Long.toString(System.nanoTime(), 36);
+        int posts = users * 2;
+        try (Socket socket = new Socket("localhost", port)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            Random random = new Random(42);
+            String[] setup = new String[users + posts];
+            for (int u = 0; u < users; u++) setup[u] = "create_user " + run + "u" + u;
+            for (int p = 0; p < posts; p++) setup[users + p] = "create_post " + run + "u" + random.nextInt(users) + " " + run + "p" + p + " hello";
+            for (int i = 0; i < setup.length; i += 256) exchange(in, out, setup, i, Math.min(i + 256, setup.length));
+        }
+
+        String[][] streams = new String[connections][];
+        for (int c = 0; c < connections; c++) streams[c] = bursts(new Random(c), run, users, posts, requests);
+        for (int round = 0; round < 2; round++) { // the first round warms up
+            for (int batch : BATCHES) {
+                Thread[] clients = new Thread[connections];
+                long start = System.nanoTime();
+                for (int c = 0; c < connections; c++) {
+                    String[] stream = streams[c];
+                    clients[c] = Thread.ofVirtual().start(() -> {
+                        try (Socket socket = new Socket("localhost", port)) {
+                            socket.setTcpNoDelay(true);
+                            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                            for (int i = 0; i < stream.length; i += batch)
+                                exchange(in, out, stream, i, Math.min(i + batch, stream.length));
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                }
+                for (Thread client : clients) client.join();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (round == 1)
+                    System.out.printf("batch %3d: %8.0f requests/s, %d connections x %d requests%n",
+                            batch, (double) connections * requests / seconds, connections, requests);
+            }
+        }
+    }
+
+    // bursts of one user seeing and liking a few posts, every like toggled twice
+    private static String[] bursts(Random random, String run, int users, int posts, int requests) {
+        String[] stream = new String[requests];
+        for (int i = 0; i < requests; i += BURST) {
+            String user = run + "u" + random.nextInt(users);
+            String[] liked = new String[4];
+            for (int p = 0; p < liked.length; p++) liked[p] = run + "p" + random.nextInt(posts);
+            int end = Math.min(i + BURST, requests);
+            int toggles = (end - i) / 2;
+            for (int k = i; k < end; k++) {
+                String post = liked[(k - i) % liked.length];
+                stream[k] = (k - i < 2 * (toggles / 2) ? "toggle_like " : "see_post ") + user + " " + post;
+            }
+        }
+        return stream;
+    }
+
+    // sends lines[from, to) at once and reads their responses
+    private static void exchange(BufferedReader in, OutputStream out, String[] lines, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) out.write((lines[i] + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        for (int i = from; i < to; i++) {
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) { }
+            if (line == null) throw new IOException("Server closed the connection");
+        }
+    }
+}
@@ -1,8 +1,10 @@
+package instaclone;
+
 /**
  * Primes class to store and calculate prime numbers
  * It uses AvlTree to store prime numbers
  * It calculates prime numbers up to 2*10^6
- * It's used for hashing in HashMap as table size
+ * It's used for hashing in ChainedHashMap as table size
  */
 public class Primes {
     private static AvlTree<Integer> primes;
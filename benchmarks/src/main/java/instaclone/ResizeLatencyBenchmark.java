@@ -0,0 +1,44 @@
+package instaclone;
+
+import java.util.Arrays;
+
+/**
+ * Measures the latency of individual HashMap.put calls while a map grows from empty,
+ * once with stop-the-world rehashing and once with incremental resizing.
+ * The tail percentiles are where the two differ: a full rehash lands on a single put.
+ * Usage: java instaclone.ResizeLatencyBenchmark [size]
+ */
+public class ResizeLatencyBenchmark {
+    /** Results are written here so the JIT cannot drop the measured work. */
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) ids[i] = "post" + i;
+        for (int round = 0; round < 3; round++) { // the first rounds only warm up the JIT
+            boolean report = round == 2;
+            measure("stop-the-world", new HashMap<>(101, false), ids, report);
+            measure("incremental", new HashMap<>(101, true), ids, report);
+        }
+    }
+
+    private static void measure(String name, HashMap<String, String> map, String[] ids, boolean report) {
+        long[] latencies = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            long start = System.nanoTime();
+            map.put(ids[i], ids[i]);
+            latencies[i] = System.nanoTime() - start;
+        }
+        sink = map;
+        if (!report) return;
+        Arrays.sort(latencies);
+        System.out.printf("%-16s n=%d  p50 %6d ns  p99 %6d ns  p99.9 %8d ns  p99.99 %10d ns  max %10d ns%n",
+                name, ids.length, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 0.9999), latencies[latencies.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+}
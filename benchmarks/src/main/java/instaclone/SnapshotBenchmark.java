@@ -0,0 +1,47 @@
+package instaclone;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Times writing and restoring a snapshot of a large synthetic graph. Restoring needs an empty
+ * process, so the two steps are separate runs:
+ * Usage: java -Xmx8g instaclone.SnapshotBenchmark write <file> [users] [postsPerUser] [followsPerUser]
+ *        java -Xmx8g SnapshotBenchmark read <file>
+ */
+public class SnapshotBenchmark {
+    public static void main(String[] args) throws Exception {
+        Path file = Path.of(args[1]);
+        if (args[0].equals("read")) {
+            long start = System.nanoTime();
+            Snapshot.restore(file);
+            long nanos = System.nanoTime() - start;
+            System.out.printf("restored %d users, %d posts in %.0f ms%n",
+                    User.users.size(), Post.posts.size(), nanos / 1e6);
+            return;
+        }
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int postsPerUser = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int follows = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        Random random = new Random(42);
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < users; i++) User.createUser("user" + i);
+        int posts = 0;
+        for (int i = 0; i < users; i++)
+            for (int p = 0; p < postsPerUser; p++)
+                Post.createPost("post" + posts++, User.users.get(i), "content");
+        for (int i = 0; i < users; i++) {
+            User user = User.users.get(i);
+            for (int f = 0; f < follows; f++) user.followUser(User.users.get(random.nextInt(users)));
+            for (int l = 0; l < 5; l++) Post.posts.get(random.nextInt(posts)).like(user);
+            if (i % 10 == 0) user.seeAllPosts(User.users.get(random.nextInt(users)));
+        }
+        System.out.printf("built %d users through the API in %.0f ms%n", users, (System.nanoTime() - buildStart) / 1e6);
+        long start = System.nanoTime();
+        Snapshot.write(file);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("wrote %d users, %d posts in %.0f ms, %.1f MB%n",
+                users, posts, nanos / 1e6, Files.size(file) / 1e6);
+    }
+}
@@ -0,0 +1,62 @@
+package instaclone;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures commands per second with the write-ahead log at one durability level, running a
+ * synthetic mix of state-changing commands through Operations as Main does. Commands build up
+ * global state, so each level is a separate run:
+ * Usage: java instaclone.WalBenchmark <log_file> off|os|<records>|<millis>ms [commands]
+ * off runs without a log, os writes it without fsync, a number fsyncs every that many records
+ * (1 for every command) and a number with ms fsyncs at most that many milliseconds apart.
+ */
+public class WalBenchmark {
+    public static void main(String[] args) throws Exception {
+        Path file = Path.of(args[0]);
+        String level = args[1];
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int users = Math.max(10, commands / 20);
+        Files.deleteIfExists(file);
+        WriteAheadLog wal = null;
+        if (level.equals("os")) wal = new WriteAheadLog(file, 0, 0);
+        else if (level.endsWith("ms")) wal = new WriteAheadLog(file, 0, Long.parseLong(level.substring(0, level.length() - 2)));
+        else if (!level.equals("off")) wal = new WriteAheadLog(file, Integer.parseInt(level), 0);
+
+        OutputSink out = OutputSink.discarding();
+        Random random = new Random(42);
+        int posts = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            String user = "user" + i;
+            if (wal != null) wal.append(Command.CREATE_USER, user);
+            Operations.createUser(user, out);
+        }
+        for (int i = users; i < commands; i++) {
+            String user1 = "user" + random.nextInt(users);
+            int kind = random.nextInt(10);
+            if (kind < 2 || posts == 0) {
+                String post = "post" + posts++;
+                if (wal != null) wal.append(Command.CREATE_POST, user1, post, "content");
+                Operations.createPost(post, user1, "content", out);
+            } else if (kind < 5) {
+                String user2 = "user" + random.nextInt(users);
+                if (wal != null) wal.append(Command.FOLLOW_USER, user1, user2);
+                Operations.followUser(user1, user2, out);
+            } else if (kind < 8) {
+                String post = "post" + random.nextInt(posts);
+                if (wal != null) wal.append(Command.TOGGLE_LIKE, user1, post);
+                Operations.toggleLike(user1, post, out);
+            } else {
+                String post = "post" + random.nextInt(posts);
+                if (wal != null) wal.append(Command.SEE_POST, user1, post);
+                Operations.seePost(user1, post, out);
+            }
+        }
+        if (wal != null) wal.close();
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-6s %8d commands in %8.0f ms, %10.0f commands/s, log %d bytes%n", level, commands,
+                nanos / 1e6, commands * 1e9 / nanos, Files.exists(file) ? Files.size(file) : 0);
+    }
+}
@@ -0,0 +1,248 @@
+package instaclone;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic input file for Main that looks like production traffic, and optionally the
+ * output a reference run of Main gives for it, to check other engines against byte for byte.
+ * The file creates the users and their follows, then some posts, then the mixed commands. Who is
+ * followed, who posts and who issues commands each follow a Zipf distribution over the users,
+ * each in a different random order of them. Likes and see_post mostly go to posts made just
+ * before, and scroll_through_feed sessions are long.
+ * The same seed and config always give the same file.
+ * <p>
+ * Config keys, read from a properties file and then from key=value arguments, with their defaults:
+ * <pre>
+ * seed=42             random seed
+ * users=10000         users created up front
+ * follows=20          mean follows per user, uniform in [0, 2 * follows]
+ * followSkew=1.0      Zipf exponent of the follower counts
+ * initialPosts=10000  posts created before the mixed commands
+ * postSkew=1.2        Zipf exponent of the posts per author
+ * activitySkew=0.8    Zipf exponent of the commands per user
+ * commands=1000000    mixed commands after the setup
+ * freshLikes=0.8      share of likes and see_post going to recent posts, the rest pick any post
+ * freshWindow=200     mean age in posts of such a recent post
+ * feedSize=10         posts per generate_feed
+ * scrollLength=50     mean posts per scroll_through_feed, exponentially distributed
+ * scrollLikes=0.1     chance each scrolled post is liked
+ * mix.&lt;command&gt;=n    relative weight of a command in the mix, see MIX for the defaults
+ * </pre>
+ * Usage: java instaclone.WorkloadGenerator <output_file> [--expected <file>] [--config <file>] [key=value...]
+ */
+public class WorkloadGenerator {
+    /**
+     * Default weights of the mixed commands. create_user is not mixed in, all users exist up front.
+     */
+    private static final int[] MIX = new int[Command.values().length];
+    static {
+        MIX[Command.GENERATE_FEED.ordinal()] = 20;
+        MIX[Command.SCROLL_THROUGH_FEED.ordinal()] = 10;
+        MIX[Command.TOGGLE_LIKE.ordinal()] = 25;
+        MIX[Command.SEE_POST.ordinal()] = 10;
+        MIX[Command.SEE_ALL_POSTS_FROM_USER.ordinal()] = 3;
+        MIX[Command.FOLLOWER_COUNT.ordinal()] = 3;
+        MIX[Command.FOLLOWING_COUNT.ordinal()] = 3;
+        MIX[Command.SORT_POSTS.ordinal()] = 2;
+        MIX[Command.CREATE_POST.ordinal()] = 15;
+        MIX[Command.FOLLOW_USER.ordinal()] = 5;
+        MIX[Command.UNFOLLOW_USER.ordinal()] = 2;
+    }
+    private static final Command[] COMMANDS = Command.values();
+
+    long seed = 42;
+    int users = 10_000;
+    int follows = 20;
+    double followSkew = 1.0;
+    int initialPosts = 10_000;
+    double postSkew = 1.2;
+    double activitySkew = 0.8;
+    long commands = 1_000_000;
+    double freshLikes = 0.8;
+    double freshWindow = 200;
+    int feedSize = 10;
+    double scrollLength = 50;
+    double scrollLikes = 0.1;
+    final int[] mix = MIX.clone();
+
+    private SplittableRandom random;
+    private int posts; // posts created so far, p0 to p(posts - 1)
+    private long lines;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java instaclone.WorkloadGenerator <output_file> [--expected <file>]"
+                    + " [--config <file>] [key=value...]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        String expected = null;
+        WorkloadGenerator generator = new WorkloadGenerator();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--expected") && i + 1 < args.length) expected = args[++i];
+            else if (args[i].equals("--config") && i + 1 < args.length) {
+                Properties config = new Properties();
+                try (Reader reader = Files.newBufferedReader(Path.of(args[++i]))) {
+                    config.load(reader);
+                }
+                for (String key : config.stringPropertyNames()) generator.set(key, config.getProperty(key).trim());
+            }
+            else {
+                int eq = args[i].indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Expected key=value but got " + args[i]);
+                generator.set(args[i].substring(0, eq), args[i].substring(eq + 1));
+            }
+        }
+        long start = System.nanoTime();
+        try (OutputSink out = new OutputSink(file)) {
+            generator.write(out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d lines in %.0f ms, %.1fM lines/s%n",
+                file, generator.lines, seconds * 1e3, generator.lines / seconds / 1e6);
+        if (expected != null) {
+            start = System.nanoTime();
+            Main.main(new String[]{file.toString(), expected}); // the serial pull engine is the reference
+            System.out.printf("%s: reference output in %.0f ms%n", expected, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Sets one config key.
+     * @throws IllegalArgumentException If the key is unknown or the value is not a valid number.
+     */
+    public void set(String key, String value) {
+        switch (key) {
+            case "seed" -> seed = Long.parseLong(value);
+            case "users" -> users = Integer.parseInt(value);
+            case "follows" -> follows = Integer.parseInt(value);
+            case "followSkew" -> followSkew = Double.parseDouble(value);
+            case "initialPosts" -> initialPosts = Integer.parseInt(value);
+            case "postSkew" -> postSkew = Double.parseDouble(value);
+            case "activitySkew" -> activitySkew = Double.parseDouble(value);
+            case "commands" -> commands = Long.parseLong(value);
+            case "freshLikes" -> freshLikes = Double.parseDouble(value);
+            case "freshWindow" -> freshWindow = Double.parseDouble(value);
+            case "feedSize" -> feedSize = Integer.parseInt(value);
+            case "scrollLength" -> scrollLength = Double.parseDouble(value);
+            case "scrollLikes" -> scrollLikes = Double.parseDouble(value);
+            default -> {
+                Command command = key.startsWith("mix.") ? Command.named(key.substring(4)) : Command.UNKNOWN;
+                if (command == Command.UNKNOWN || command == Command.CREATE_USER) {
+                    throw new IllegalArgumentException("Unknown workload config key " + key);
+                }
+                mix[command.ordinal()] = Integer.parseInt(value);
+            }
+        }
+    }
+
+    /**
+     * Writes the workload.
+     */
+    public void write(OutputSink out) {
+        random = new SplittableRandom(seed);
+        posts = 0;
+        lines = 0;
+        int[] followed = shuffled(users); // followed[rank] is the user with the rank-th most followers
+        int[] authors = shuffled(users);
+        int[] actors = shuffled(users);
+        Zipf followRank = new Zipf(users, followSkew);
+        Zipf authorRank = new Zipf(users, postSkew);
+        Zipf actorRank = new Zipf(users, activitySkew);
+
+        for (int u = 0; u < users; u++) {
+            user(out.append("create_user "), u);
+            end(out);
+        }
+        for (int u = 0; u < users; u++) {
+            for (int f = random.nextInt(2 * follows + 1); f > 0; f--) {
+                int other = followed[followRank.next(random)];
+                if (other == u) continue;
+                user(user(out.append("follow_user "), u).append(' '), other);
+                end(out);
+            }
+        }
+        for (int p = 0; p < initialPosts; p++) createPost(out, authors[authorRank.next(random)]);
+
+        int[] cumulative = new int[mix.length];
+        int total = 0;
+        for (int i = 0; i < mix.length; i++) cumulative[i] = total += mix[i];
+        if (commands > 0 && total == 0) throw new IllegalArgumentException("All mix weights are 0");
+        for (long c = 0; c < commands; c++) {
+            int roll = random.nextInt(total);
+            int i = 0;
+            while (cumulative[i] <= roll) i++;
+            int actor = actors[actorRank.next(random)];
+            switch (COMMANDS[i]) {
+                case CREATE_POST -> createPost(out, authors[authorRank.next(random)]);
+                case FOLLOW_USER -> twoUsers(out, "follow_user ", actor, followed[followRank.next(random)]);
+                case UNFOLLOW_USER -> twoUsers(out, "unfollow_user ", actor, followed[followRank.next(random)]);
+                case SEE_ALL_POSTS_FROM_USER -> twoUsers(out, "see_all_posts_from_user ", actor, authors[authorRank.next(random)]);
+                case FOLLOWER_COUNT -> end(user(out.append("follower_count "), actor));
+                case FOLLOWING_COUNT -> end(user(out.append("following_count "), actor));
+                case SORT_POSTS -> end(user(out.append("sort_posts "), actor));
+                case SEE_POST -> end(post(user(out.append("see_post "), actor).append(' ')));
+                case TOGGLE_LIKE -> end(post(user(out.append("toggle_like "), actor).append(' ')));
+                case GENERATE_FEED -> end(user(out.append("generate_feed "), actor).append(' ').append(feedSize));
+                case SCROLL_THROUGH_FEED -> {
+                    // exponential with the given mean, but at least one post
+                    int num = 1 + (int) Math.min(-(scrollLength - 1) * Math.log(1 - random.nextDouble()), 100 * scrollLength);
+                    user(out.append("scroll_through_feed "), actor).append(' ').append(num);
+                    for (int k = 0; k < num; k++) out.append(random.nextDouble() < scrollLikes ? " 1" : " 0");
+                    end(out);
+                }
+                default -> throw new IllegalStateException("Cannot generate " + COMMANDS[i]);
+            }
+        }
+    }
+
+    // a random order of 0 to n - 1
+    private int[] shuffled(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    private void createPost(OutputSink out, int author) {
+        user(out.append("create_post "), author).append(" p").append(posts).append(" content").append(posts);
+        posts++;
+        end(out);
+    }
+
+    private void twoUsers(OutputSink out, String command, int user1, int user2) {
+        end(user(user(out.append(command), user1).append(' '), user2));
+    }
+
+    private static OutputSink user(OutputSink out, int user) {
+        return out.append('u').append(user);
+    }
+
+    // a recent post with chance freshLikes, any post otherwise
+    private OutputSink post(OutputSink out) {
+        if (posts == 0) return out.append("p0");
+        int post;
+        if (random.nextDouble() < freshLikes) {
+            double age = -freshWindow * Math.log(1 - random.nextDouble());
+            post = (int) Math.max(posts - 1 - age, 0);
+        } else {
+            post = random.nextInt(posts);
+        }
+        return out.append('p').append(post);
+    }
+
+    private void end(OutputSink out) {
+        out.newLine();
+        lines++;
+    }
+}
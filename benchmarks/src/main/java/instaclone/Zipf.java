@@ -0,0 +1,47 @@
+package instaclone;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks in [0, n) with probability proportional to 1 / (rank + 1)^exponent, so rank 0 is
+ * the most popular. An exponent of 0 is uniform; around 1 a few ranks take most of the draws,
+ * the way a few posts collect most of the likes.
+ * Draws take constant time with Walker's alias method: rank i is kept with probability keep[i],
+ * and otherwise replaced by alias[i].
+ */
+public class Zipf {
+    private final double[] keep;
+    private final int[] alias;
+
+    public Zipf(int n, double exponent) {
+        keep = new double[n];
+        alias = new int[n];
+        double total = 0;
+        for (int r = 0; r < n; r++) total += Math.pow(r + 1, -exponent);
+        // scaled so the mean is 1: ranks below it are topped up from those above
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0, larges = 0;
+        for (int r = 0; r < n; r++) {
+            keep[r] = Math.pow(r + 1, -exponent) / total * n;
+            if (keep[r] < 1) small[smalls++] = r;
+            else large[larges++] = r;
+        }
+        while (smalls > 0 && larges > 0) {
+            int s = small[--smalls];
+            int l = large[--larges];
+            alias[s] = l;
+            keep[l] -= 1 - keep[s];
+            if (keep[l] < 1) small[smalls++] = l;
+            else large[larges++] = l;
+        }
+        // what is left is 1 up to rounding
+        while (larges > 0) keep[large[--larges]] = 1;
+        while (smalls > 0) keep[small[--smalls]] = 1;
+    }
+
+    public int next(RandomGenerator random) {
+        int r = random.nextInt(keep.length);
+        return random.nextDouble() < keep[r] ? r : alias[r];
+    }
+}
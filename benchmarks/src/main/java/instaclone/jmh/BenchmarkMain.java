@@ -0,0 +1,23 @@
+package instaclone.jmh;
+
+import java.util.Arrays;
+
+/**
+ * Runs the JMH benchmarks like org.openjdk.jmh.Main, but unless -rf or -rff is given the results
+ * are also written to jmh-result.csv, one row per benchmark and parameter combination, for
+ * CompareResults to diff against those of another commit.
+ * Usage: java -jar benchmarks/target/benchmarks.jar [JMH options, e.g. OperationsBenchmark -p fanOut=100]
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        if (!Arrays.asList(args).contains("-rf") && !Arrays.asList(args).contains("-rff")) {
+            String[] withResults = Arrays.copyOf(args, args.length + 4);
+            withResults[args.length] = "-rf";
+            withResults[args.length + 1] = "csv";
+            withResults[args.length + 2] = "-rff";
+            withResults[args.length + 3] = "jmh-result.csv";
+            args = withResults;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,97 @@
+package instaclone.jmh;
+
+import instaclone.HashMap;
+import instaclone.MaxHeap;
+import instaclone.MyHashSet;
+import instaclone.Post;
+import instaclone.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The collections under the commands: filling a HashMap or MyHashSet from the default size,
+ * which goes through every rehash on the way, lookups in a full map, and draining a MaxHeap of posts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class CollectionsBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private String[] ids;
+    private String[] shuffled;
+    private HashMap<String, String> full;
+    private ArrayList<Post> posts;
+
+    @Setup(Level.Trial)
+    public void build() {
+        ids = new String[size];
+        for (int i = 0; i < size; i++) ids[i] = "user" + i;
+        shuffled = ids.clone();
+        Collections.shuffle(java.util.Arrays.asList(shuffled), new Random(42));
+        full = new HashMap<>();
+        for (String id : ids) full.put(id, id);
+        User.createUser("author");
+        User author = User.getUser("author");
+        posts = new ArrayList<>(size);
+        for (String id : shuffled) {
+            Post.createPost(id, author, "content");
+            posts.add(Post.getPost(id));
+        }
+    }
+
+    @Benchmark
+    public HashMap<String, String> hashMapPut() {
+        HashMap<String, String> map = new HashMap<>();
+        for (String id : ids) map.put(id, id);
+        return map;
+    }
+
+    @Benchmark
+    public HashMap<String, String> hashMapPutIncremental() {
+        HashMap<String, String> map = new HashMap<>(101, true);
+        for (String id : ids) map.put(id, id);
+        return map;
+    }
+
+    @Benchmark
+    public int hashMapGet() {
+        int found = 0;
+        for (String id : shuffled) if (full.getValue(id) != null) found++;
+        return found;
+    }
+
+    @Benchmark
+    public MyHashSet<String> myHashSetAdd() {
+        MyHashSet<String> set = new MyHashSet<>();
+        for (String id : ids) set.add(id);
+        return set;
+    }
+
+    @Benchmark
+    public Post maxHeapDrain() {
+        MaxHeap heap = new MaxHeap(posts);
+        Post last = null;
+        while (!heap.isEmpty()) last = heap.deleteMax();
+        return last;
+    }
+}
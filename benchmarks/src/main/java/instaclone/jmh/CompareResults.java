@@ -0,0 +1,86 @@
+package instaclone.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two CSV result files written by BenchmarkMain, say from the commits before and after a
+ * change. Each benchmark and parameter combination found in both is printed with its score in
+ * either file and the change. A change larger than the two error margins together is marked with
+ * a "!", as it is more than noise.
+ * Usage: java -cp benchmarks/target/benchmarks.jar instaclone.jmh.CompareResults <before.csv> <after.csv>
+ */
+public class CompareResults {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java -cp benchmarks.jar instaclone.jmh.CompareResults <before.csv> <after.csv>");
+            return;
+        }
+        Map<String, double[]> before = read(Path.of(args[0]));
+        Map<String, double[]> after = read(Path.of(args[1]));
+        for (Map.Entry<String, double[]> entry : after.entrySet()) {
+            double[] old = before.get(entry.getKey());
+            double[] now = entry.getValue();
+            if (old == null) {
+                System.out.printf("  %-80s %12s %12.3f%n", entry.getKey(), "-", now[0]);
+                continue;
+            }
+            double change = (now[0] - old[0]) / old[0] * 100;
+            boolean significant = Math.abs(now[0] - old[0]) > old[1] + now[1];
+            System.out.printf("%s %-80s %12.3f %12.3f %+8.1f%%%n",
+                    significant ? "!" : " ", entry.getKey(), old[0], now[0], change);
+        }
+    }
+
+    /**
+     * @return Score and error by benchmark, mode, unit and parameters, in file order.
+     */
+    static Map<String, double[]> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<String> header = split(lines.get(0));
+        int score = header.indexOf("Score");
+        int error = score + 1;
+        int unit = header.indexOf("Unit");
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            List<String> cells = split(line);
+            StringBuilder key = new StringBuilder(cells.get(0).replace("instaclone.jmh.", "")).append(' ').append(cells.get(1))
+                    .append(' ').append(cells.get(unit));
+            for (int i = unit + 1; i < cells.size(); i++) {
+                if (!cells.get(i).isEmpty()) key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(cells.get(i));
+            }
+            results.put(key.toString(), new double[]{number(cells.get(score)), number(cells.get(error))});
+        }
+        return results;
+    }
+
+    // JMH writes the numbers in the default locale, which may use a decimal comma
+    private static double number(String cell) {
+        if (cell.isEmpty() || cell.equals("NaN")) return Double.NaN;
+        return Double.parseDouble(cell.replace(',', '.'));
+    }
+
+    // splits a CSV line into unquoted cells
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') quoted = !quoted;
+            else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            }
+            else cell.append(c);
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
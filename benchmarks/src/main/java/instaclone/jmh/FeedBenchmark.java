@@ -0,0 +1,99 @@
+package instaclone.jmh;
+
+import instaclone.FeedMode;
+import instaclone.MaxHeap;
+import instaclone.Post;
+import instaclone.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times generate_feed for one reader who follows many prolific authors, comparing the
+ * original path (collect every unseen post, heapify all of them, pop num) with
+ * User.generateFeed in PULL mode and in PUSH mode, where it reads the reader's feed cache.
+ * Likes are spread at random so the top of the feed is not trivial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FeedBenchmark {
+    @Param({"2000"})
+    public int authors;
+    @Param({"100"})
+    public int postsPerAuthor;
+    @Param({"5"})
+    public int num;
+
+    private User reader;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        User.createUser("reader");
+        reader = User.getUser("reader");
+        User[] likers = new User[64];
+        for (int i = 0; i < likers.length; i++) {
+            User.createUser("liker" + i);
+            likers[i] = User.getUser("liker" + i);
+        }
+        for (int a = 0; a < authors; a++) {
+            User.createUser("author" + a);
+            User author = User.getUser("author" + a);
+            reader.followUser(author);
+            for (int p = 0; p < postsPerAuthor; p++) {
+                String id = "post" + a + "_" + p;
+                Post.createPost(id, author, "content");
+                Post post = Post.getPost(id);
+                for (int l = random.nextInt(likers.length); l > 0; l--) post.like(likers[random.nextInt(likers.length)]);
+                if (random.nextInt(10) == 0) reader.seePost(post);
+            }
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Post> fullHeap() {
+        MaxHeap heap = new MaxHeap(reader.createFeed());
+        ArrayList<Post> result = new ArrayList<>();
+        for (int i = 0; i < num && !heap.isEmpty(); i++) result.add(heap.deleteMax());
+        return result;
+    }
+
+    @Benchmark
+    public ArrayList<Post> merge() {
+        return reader.generateFeed(num);
+    }
+
+    @Benchmark
+    public ArrayList<Post> pushCache(Push push) {
+        return reader.generateFeed(num);
+    }
+
+    /**
+     * Switches the fork to PUSH mode once the graph is built, which taking the FeedBenchmark state
+     * makes JMH do first; every benchmark gets its own JVM, so the others stay in PULL mode.
+     */
+    @State(Scope.Benchmark)
+    public static class Push {
+        @Setup(Level.Trial)
+        public void push(FeedBenchmark built) {
+            User.feedMode = FeedMode.PUSH;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package instaclone.jmh;
+
+import instaclone.OutputSink;
+import instaclone.Post;
+import instaclone.User;
+import instaclone.Zipf;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * The social graph the Operations benchmarks run against, built once per fork in the global
+ * registries, as Main would build it from an input file: users u0.. each following fanOut random
+ * users, postsPerAuthor posts p0.. per user, and fanOut likes per user on posts drawn from a Zipf
+ * distribution with exponent likeSkew.
+ * The users, pairs and posts a benchmark touches are drawn up front and cycled through, so the
+ * measured code does not include the random number generator.
+ */
+@State(Scope.Benchmark)
+public class Graph {
+    @Param({"10000"})
+    public int users;
+    @Param({"10", "100"})
+    public int fanOut;
+    @Param({"10"})
+    public int postsPerAuthor;
+    @Param({"0", "1.1"})
+    public double likeSkew;
+    @Param({"10"})
+    public int feedSize;
+
+    private static final int PICKS = 1 << 16; // a power of two, see next
+
+    String[] userIDs;
+    String[] postIDs;
+    int[] userPicks; // uniform over the users
+    int[] otherPicks; // uniform over the users, independent of userPicks
+    int[] postPicks; // uniform over the posts
+    int[] likedPicks; // Zipf over the posts, as for the setup likes
+    int[] actions; // scroll_through_feed actions, 0 to see and 1 to like
+    final OutputSink out = OutputSink.discarding();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        userIDs = new String[users];
+        for (int u = 0; u < users; u++) {
+            userIDs[u] = "u" + u;
+            User.createUser(userIDs[u]);
+        }
+        for (int u = 0; u < users; u++) {
+            User user = User.getUser(userIDs[u]);
+            for (int f = 0; f < fanOut; f++) user.followUser(User.getUser(userIDs[random.nextInt(users)]));
+        }
+        // post p is written by user p % users, so each author's posts are spread over time
+        postIDs = new String[users * postsPerAuthor];
+        for (int p = 0; p < postIDs.length; p++) {
+            postIDs[p] = "p" + p;
+            Post.createPost(postIDs[p], User.getUser(userIDs[p % users]), "content" + p);
+        }
+        Zipf liked = new Zipf(postIDs.length, likeSkew);
+        for (int u = 0; u < users; u++) {
+            User user = User.getUser(userIDs[u]);
+            for (int l = 0; l < fanOut; l++) Post.getPost(postIDs[liked.next(random)]).like(user);
+        }
+
+        userPicks = new int[PICKS];
+        otherPicks = new int[PICKS];
+        postPicks = new int[PICKS];
+        likedPicks = new int[PICKS];
+        for (int i = 0; i < PICKS; i++) {
+            userPicks[i] = random.nextInt(users);
+            otherPicks[i] = random.nextInt(users);
+            postPicks[i] = random.nextInt(postIDs.length);
+            likedPicks[i] = liked.next(random);
+        }
+        actions = new int[feedSize];
+        for (int i = 0; i < feedSize; i++) actions[i] = random.nextInt(2);
+    }
+
+    /**
+     * @return The index of the next precomputed pick.
+     */
+    int next() {
+        return cursor = (cursor + 1) & (PICKS - 1);
+    }
+
+    String user(int pick) {
+        return userIDs[userPicks[pick]];
+    }
+    String other(int pick) {
+        return userIDs[otherPicks[pick]];
+    }
+    String post(int pick) {
+        return postIDs[postPicks[pick]];
+    }
+    String likedPost(int pick) {
+        return postIDs[likedPicks[pick]];
+    }
+}
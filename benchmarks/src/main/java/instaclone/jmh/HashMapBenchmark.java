@@ -0,0 +1,104 @@
+package instaclone.jmh;
+
+import instaclone.ChainedHashMap;
+import instaclone.HashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the open-addressing HashMap with the original chained implementation
+ * on the access patterns of User.allUsers and Post.allPosts: bulk inserts of
+ * sequential string IDs, lookup hits and lookup misses. Lookups run in a shuffled
+ * order, as commands touch users and posts at random.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class HashMapBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private String[] ids;
+    private String[] shuffled;
+    private String[] missing;
+    private HashMap<String, String> open;
+    private ChainedHashMap<String, String> chained;
+
+    @Setup(Level.Trial)
+    public void build() {
+        ids = new String[size];
+        missing = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = "user" + i;
+            missing[i] = "post" + i;
+        }
+        shuffled = ids.clone();
+        Collections.shuffle(java.util.Arrays.asList(shuffled), new Random(42));
+        Collections.shuffle(java.util.Arrays.asList(missing), new Random(43));
+        open = new HashMap<>();
+        chained = new ChainedHashMap<>();
+        for (String id : ids) {
+            open.put(id, id);
+            chained.put(id, id);
+        }
+    }
+
+    @Benchmark
+    public HashMap<String, String> putOpen() {
+        HashMap<String, String> map = new HashMap<>();
+        for (String id : ids) map.put(id, id);
+        return map;
+    }
+
+    @Benchmark
+    public ChainedHashMap<String, String> putChained() {
+        ChainedHashMap<String, String> map = new ChainedHashMap<>();
+        for (String id : ids) map.put(id, id);
+        return map;
+    }
+
+    @Benchmark
+    public int getHitOpen() {
+        int found = 0;
+        for (String id : shuffled) if (open.getValue(id) != null) found++;
+        return found;
+    }
+
+    @Benchmark
+    public int getHitChained() {
+        int found = 0;
+        for (String id : shuffled) if (chained.getValue(id) != null) found++;
+        return found;
+    }
+
+    @Benchmark
+    public int getMissOpen() {
+        int found = 0;
+        for (String id : missing) if (open.contains(id)) found++;
+        return found;
+    }
+
+    @Benchmark
+    public int getMissChained() {
+        int found = 0;
+        for (String id : missing) if (chained.contains(id)) found++;
+        return found;
+    }
+}
@@ -0,0 +1,162 @@
+package instaclone.jmh;
+
+import instaclone.Post;
+import instaclone.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls Post.like directly from many threads on the same few hot posts of one author. Each
+ * thread plays one liker's shard with its own users, as the Engine runs a like on its liker's
+ * shard, so the threads meet in the posts' counters and the author's ranking. There is one
+ * benchmark per thread count from 1 to 32, scored in total toggles per microsecond, and after
+ * each run every count must equal the number of users who like the post, summed over the
+ * threads, and the author's ranking must be ordered by those counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LikeContentionBenchmark {
+    /**
+     * The author and the hot posts every thread toggles, and the threads' likers, to check the
+     * counts against once the run is over.
+     */
+    @State(Scope.Benchmark)
+    public static class Hot {
+        @Param({"4"})
+        public int hot;
+
+        private User author;
+        private Post[] posts;
+        private final ConcurrentLinkedQueue<Likers> likers = new ConcurrentLinkedQueue<>();
+
+        @Setup(Level.Trial)
+        public void build() {
+            User.createUser("author");
+            author = User.getUser("author");
+            posts = new Post[hot];
+            for (int p = 0; p < hot; p++) {
+                Post.createPost("post" + p, author, "content");
+                posts[p] = Post.getPost("post" + p);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void check() {
+            for (int p = 0; p < hot; p++) {
+                Post post = posts[p];
+                int expected = 0;
+                for (Likers thread : likers) expected += thread.liking(p);
+                if (post.likes != expected)
+                    throw new IllegalStateException("Wrong count for " + post.ID + ": " + post.likes + " != " + expected);
+            }
+            Iterator<Post> ranked = author.sortPosts().iterator();
+            Post previous = null;
+            int seen = 0;
+            while (ranked.hasNext()) {
+                Post post = ranked.next();
+                if (previous != null && previous.compareTo(post) < 0)
+                    throw new IllegalStateException("Wrong ranking order for " + author.ID);
+                previous = post;
+                seen++;
+            }
+            if (seen != posts.length) throw new IllegalStateException("Wrong ranking size " + seen + " for " + author.ID);
+        }
+    }
+
+    /**
+     * One thread's users, who toggle their likes of the hot posts in turn.
+     */
+    @State(Scope.Thread)
+    public static class Likers {
+        private static final int USERS = 64;
+
+        private final User[] users = new User[USERS];
+        private int hot;
+        private long toggles;
+
+        @Setup(Level.Trial)
+        public void build(Hot shared, ThreadParams thread) {
+            String shard = "t" + thread.getThreadIndex() + "-";
+            for (int u = 0; u < USERS; u++) {
+                User.createUser(shard + "user" + u);
+                users[u] = User.getUser(shard + "user" + u);
+            }
+            hot = shared.hot;
+            shared.likers.add(this);
+        }
+
+        // toggle i is user (i / hot) % USERS's on post i % hot
+        boolean toggle(Hot shared) {
+            long i = toggles++;
+            return shared.posts[(int) (i % hot)].like(users[(int) (i / hot % USERS)]);
+        }
+
+        // how many of the users like post p: those who toggled it an odd number of times
+        int liking(int p) {
+            long round = (long) hot * USERS;
+            int liking = 0;
+            for (int u = 0; u < USERS; u++) {
+                long first = (long) hot * u + p;
+                long times = first < toggles ? (toggles - first + round - 1) / round : 0;
+                if (times % 2 == 1) liking++;
+            }
+            return liking;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads01(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean threads02(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threads04(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean threads08(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean threads16(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean threads32(Hot hot, Likers likers) {
+        return likers.toggle(hot);
+    }
+}
@@ -0,0 +1,132 @@
+package instaclone.jmh;
+
+import instaclone.Operations;
+import instaclone.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per Operations command, each run against a Graph of every parameter combination.
+ * Every benchmark and combination gets its own JVM, so the global registries start empty each time.
+ * Commands that add users or posts use fresh IDs, so the graph grows slowly over a run; follows
+ * are undone in the same invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class OperationsBenchmark {
+    private int created; // suffix of the next fresh ID
+
+    @Benchmark
+    public void createUser(Graph g) {
+        Operations.createUser("n" + created++, g.out);
+    }
+
+    @Benchmark
+    public void createPost(Graph g) {
+        Operations.createPost("n" + created++, g.user(g.next()), "content", g.out);
+    }
+
+    @Benchmark
+    public void followAndUnfollowUser(Graph g) {
+        int pick = g.next();
+        Operations.followUser(g.user(pick), g.other(pick), g.out);
+        Operations.unfollowUser(g.user(pick), g.other(pick), g.out);
+    }
+
+    @Benchmark
+    public void followerCount(Graph g) {
+        Operations.followerCount(g.user(g.next()), g.out);
+    }
+
+    @Benchmark
+    public void followingCount(Graph g) {
+        Operations.followingCount(g.user(g.next()), g.out);
+    }
+
+    @Benchmark
+    public void seePost(Graph g) {
+        int pick = g.next();
+        Operations.seePost(g.user(pick), g.post(pick), g.out);
+    }
+
+    @Benchmark
+    public void seeAllPostsFromUser(Graph g) {
+        int pick = g.next();
+        Operations.seeAllPosts(g.user(pick), g.other(pick), g.out);
+    }
+
+    @Benchmark
+    public void toggleLike(Graph g) {
+        int pick = g.next();
+        Operations.toggleLike(g.user(pick), g.likedPost(pick), g.out);
+    }
+
+    @Benchmark
+    public void generateFeed(Graph g) {
+        Operations.generateFeed(g.user(g.next()), g.feedSize, g.out);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = Readers.COUNT)
+    @Measurement(iterations = 5, batchSize = Readers.COUNT)
+    @OperationsPerInvocation(Readers.COUNT)
+    public void scrollThroughFeed(Graph g, Readers readers) {
+        Operations.scrollThroughFeed(readers.next(), g.feedSize, g.actions, g.out);
+    }
+
+    @Benchmark
+    public void sortPosts(Graph g) {
+        Operations.sortPosts(g.user(g.next()), g.out);
+    }
+
+    /**
+     * Scrolling marks the posts seen, which would empty the feeds of the graph's users over a run,
+     * so every iteration scrolls the feeds of COUNT new users, each following fanOut authors.
+     * A timed iteration would scroll some of them many times, so scrollThroughFeed runs batches
+     * of COUNT calls instead, and each reader is scrolled exactly once per iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class Readers {
+        static final int COUNT = 10_000;
+
+        private String[] ids;
+        private int cursor;
+        private int iteration;
+
+        @Setup(Level.Iteration)
+        public void follow(Graph g) {
+            Random random = new Random(iteration);
+            ids = new String[COUNT];
+            for (int r = 0; r < ids.length; r++) {
+                ids[r] = "r" + iteration + "_" + r;
+                User.createUser(ids[r]);
+                User reader = User.getUser(ids[r]);
+                for (int f = 0; f < g.fanOut; f++) reader.followUser(User.getUser(g.userIDs[random.nextInt(g.users)]));
+            }
+            iteration++;
+            cursor = 0;
+        }
+
+        String next() {
+            return ids[cursor++];
+        }
+    }
+}
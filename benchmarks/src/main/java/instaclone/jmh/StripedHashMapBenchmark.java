@@ -0,0 +1,146 @@
+package instaclone.jmh;
+
+import instaclone.HashMap;
+import instaclone.StripedHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how StripedHashMap scales with threads against the plain HashMap behind one lock,
+ * on the registry access pattern: mostly lookups of existing IDs, with a share of
+ * putIfAbsent calls creating new ones. There is one benchmark per thread count from 1 to 32,
+ * as JMH cannot take the thread count as a @Param, and the scores are total operations per
+ * microsecond over all threads, so they should grow with threads up to the number of cores.
+ * The map is rebuilt for every iteration, so the new IDs do not pile up over a run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StripedHashMapBenchmark {
+    private interface Registry {
+        String getValue(String key);
+        String putIfAbsent(String key, String value);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Maps {
+        @Param({"striped", "oneLock"})
+        public String map;
+        @Param({"1000000"})
+        public int size;
+        @Param({"10"})
+        public int putPercent;
+
+        String[] ids;
+        Registry registry;
+
+        @Setup(Level.Trial)
+        public void ids() {
+            ids = new String[size];
+            for (int i = 0; i < size; i++) ids[i] = "user" + i;
+        }
+
+        @Setup(Level.Iteration)
+        public void build() {
+            if (map.equals("striped")) {
+                StripedHashMap<String, String> striped = new StripedHashMap<>(2 * size, true);
+                for (String id : ids) striped.put(id, id);
+                registry = new Registry() {
+                    public String getValue(String key) { return striped.getValue(key); }
+                    public String putIfAbsent(String key, String value) { return striped.putIfAbsent(key, value); }
+                };
+            } else {
+                HashMap<String, String> plain = new HashMap<>(2 * size, true);
+                for (String id : ids) plain.put(id, id);
+                Object lock = new Object();
+                registry = new Registry() {
+                    public String getValue(String key) { synchronized (lock) { return plain.getValue(key); } }
+                    public String putIfAbsent(String key, String value) { synchronized (lock) { return plain.putIfAbsent(key, value); } }
+                };
+            }
+        }
+    }
+
+    /**
+     * One thread's operations, drawn up front so the measured code does not include the random
+     * number generator: an index into the IDs to look up, or -1 to put a new ID.
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        private static final int PICKS = 1 << 16; // a power of two, see next
+
+        private int[] picks;
+        private int cursor;
+        private String prefix; // of the new IDs, unique to the thread
+        private int created;
+
+        @Setup(Level.Trial)
+        public void draw(Maps maps, ThreadParams thread) {
+            Random random = new Random(thread.getThreadIndex());
+            picks = new int[PICKS];
+            for (int i = 0; i < PICKS; i++)
+                picks[i] = random.nextInt(100) < maps.putPercent ? -1 : random.nextInt(maps.size);
+            prefix = "new" + thread.getThreadIndex() + "-";
+        }
+
+        String run(Maps maps) {
+            int pick = picks[cursor = (cursor + 1) & (PICKS - 1)];
+            if (pick >= 0) return maps.registry.getValue(maps.ids[pick]);
+            String key = prefix + created++;
+            return maps.registry.putIfAbsent(key, key);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads01(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public String threads02(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads04(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String threads08(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String threads32(Maps maps, Worker worker) {
+        return worker.run(maps);
+    }
+}
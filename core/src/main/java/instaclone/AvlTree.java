@@ -1,7 +1,12 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * AVL Tree implementation
  * @param <T>
- * Used for storing the primes in Primes.java to get the next prime
  */
 public class AvlTree<T extends Comparable<T>> {
     private class AVLNode {
@@ -16,13 +21,14 @@ public class AvlTree<T extends Comparable<T>> {
     }
 
     private AVLNode root;
+    private int size;
 
     public void insert(T data) {
-        if (!contains(data))
-            root = insert(root, data);
+        root = insert(root, data); // an equal element is left in place
     }
     private AVLNode insert(AVLNode node, T data) {
         if (node == null) {
+            size++;
             return new AVLNode(data);
         }
         if (data.compareTo(node.data) < 0) {
@@ -60,9 +66,7 @@ public class AvlTree<T extends Comparable<T>> {
         return node;
     }
     public void delete(T data) {
-        if (contains(data)) {
-            root = delete(root, data);
-        }
+        root = delete(root, data); // a missing element leaves the tree unchanged
     }
     private AVLNode delete(AVLNode node, T data) {
         if (node == null) {
@@ -74,6 +78,7 @@ public class AvlTree<T extends Comparable<T>> {
             node.right = delete(node.right, data);
         } else {
             if (node.left == null || node.right == null) { // 0 or 1 child case
+                size--;
                 AVLNode temp = null;
                 if (temp == node.left) { // 1 child
                     temp = node.right;
@@ -89,7 +94,7 @@ public class AvlTree<T extends Comparable<T>> {
             } else { // 2 children case
                 AVLNode temp = minValueNode(node.right);
                 node.data = temp.data;
-                node.right = delete(node.right, temp.data);
+                node.right = delete(node.right, temp.data); // counts the removal
             }
         }
         if (node == null) {
@@ -193,4 +198,75 @@ public class AvlTree<T extends Comparable<T>> {
         return smallestLarger;
     }
 
+    public int size() {
+        return size;
+    }
+    /**
+     * @return the smallest element, or null if the tree is empty
+     */
+    public T min() {
+        return root == null ? null : minValueNode(root).data;
+    }
+    public boolean isEmpty() {
+        return root == null;
+    }
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Iterates from the largest element to the smallest. The tree must not be modified while
+     * the iterator is in use.
+     */
+    public Iterator<T> descendingIterator() {
+        return new DescendingIterator();
+    }
+    /**
+     * Iterates from the largest element ranked below a bound, which need not be in the tree, to
+     * the smallest. Starting below the last element returned resumes an iteration after the tree
+     * was modified. The tree must not be modified while the iterator is in use.
+     * @param bound compares greater than the elements to iterate over
+     */
+    public Iterator<T> descendingIterator(Comparable<? super T> bound) {
+        return new DescendingIterator(bound);
+    }
+    private class DescendingIterator implements Iterator<T> {
+        // nodes whose right subtree is done and which are still to be returned, deepest last
+        private final ArrayList<AVLNode> stack = new ArrayList<>();
+
+        DescendingIterator() {
+            pushRightSpine(root);
+        }
+        DescendingIterator(Comparable<? super T> bound) {
+            for (AVLNode node = root; node != null; ) {
+                if (bound.compareTo(node.data) > 0) { // the node is below the bound, and maybe some of its right subtree
+                    stack.add(node);
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+        }
+        private void pushRightSpine(AVLNode node) {
+            for (; node != null; node = node.right)
+                stack.add(node);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AVLNode node = stack.remove(stack.size() - 1);
+            pushRightSpine(node.left);
+            return node.data;
+        }
+    }
+
 }
@@ -0,0 +1,70 @@
+package instaclone;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The commands of an input file, matched by CommandReader against the bytes of a line's first word.
+ */
+public enum Command {
+    CREATE_USER("create_user", 1),
+    CREATE_POST("create_post", 3),
+    FOLLOW_USER("follow_user", 2),
+    UNFOLLOW_USER("unfollow_user", 2),
+    FOLLOWER_COUNT("follower_count", 1),
+    FOLLOWING_COUNT("following_count", 1),
+    SEE_POST("see_post", 2),
+    SEE_ALL_POSTS_FROM_USER("see_all_posts_from_user", 2),
+    TOGGLE_LIKE("toggle_like", 2),
+    /**
+     * Followed by the user and the number of posts.
+     */
+    GENERATE_FEED("generate_feed", 1),
+    /**
+     * Followed by the user, the number of posts and one action per post, 0 to see it or 1 to like it.
+     */
+    SCROLL_THROUGH_FEED("scroll_through_feed", 1),
+    SORT_POSTS("sort_posts", 1),
+    /**
+     * Any other first word, including an empty line; such lines are skipped.
+     */
+    UNKNOWN("", 0);
+
+    private static final Command[] VALUES = values();
+    private final byte[] name;
+    private final String text;
+    /**
+     * Number of word arguments, which come before any numbers.
+     */
+    public final int words;
+
+    Command(String name, int words) {
+        this.name = name.getBytes(StandardCharsets.US_ASCII);
+        this.text = name;
+        this.words = words;
+    }
+
+    /**
+     * @return The command with the given name, or UNKNOWN.
+     */
+    public static Command named(String name) {
+        for (Command command : VALUES) {
+            if (command.text.equals(name) && command != UNKNOWN) return command;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return The command spelled by bytes[from, to), or UNKNOWN.
+     */
+    public static Command of(byte[] bytes, int from, int to) {
+        int length = to - from;
+        for (Command command : VALUES) {
+            byte[] name = command.name;
+            if (name.length != length || length == 0) continue;
+            int i = 0;
+            while (i < length && name[i] == bytes[from + i]) i++;
+            if (i == length) return command;
+        }
+        return UNKNOWN;
+    }
+}
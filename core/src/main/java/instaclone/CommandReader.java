@@ -0,0 +1,127 @@
+package instaclone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads an input file line by line and splits each line into words on single spaces,
+ * like readLine and split(" "), without building a String for the line or the command.
+ * The file is read through a FileChannel into one large buffer and words are scanned in place:
+ * the command is matched to a Command, numbers are parsed from the bytes and only IDs and
+ * contents become Strings.
+ */
+public class CommandReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] bytes = buffer.array();
+    private int limit; // end of the bytes read so far
+    private boolean endOfFile;
+    private int lineEnd; // end of the current line, before its line break
+    private int nextLine; // start of the line after it
+    private int position; // start of the next word in the current line
+
+    public CommandReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Moves to the next line.
+     * @return The line's command, or null at the end of the file.
+     */
+    public Command nextCommand() throws IOException {
+        int start = nextLine;
+        int i = start;
+        while (true) {
+            while (i < limit && bytes[i] != '\n') i++;
+            if (i < limit || endOfFile) break;
+            int scanned = i - start;
+            start = refill(start);
+            i = start + scanned;
+        }
+        if (start == limit && endOfFile) return null;
+        nextLine = i < limit ? i + 1 : i;
+        lineEnd = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+        position = start;
+        int end = wordEnd();
+        Command command = Command.of(bytes, position, end);
+        position = end + 1;
+        return command;
+    }
+
+    // keeps bytes from start on, moved to the front of the buffer, and reads more after them
+    private int refill(int start) throws IOException {
+        int kept = limit - start;
+        if (kept == bytes.length) { // a line longer than the buffer
+            ByteBuffer larger = ByteBuffer.allocate(bytes.length * 2);
+            larger.put(bytes, 0, kept);
+            buffer = larger;
+            bytes = larger.array();
+        } else {
+            System.arraycopy(bytes, start, bytes, 0, kept);
+        }
+        buffer.clear().position(kept);
+        int read = channel.read(buffer);
+        if (read < 0) endOfFile = true;
+        limit = kept + Math.max(read, 0);
+        return 0;
+    }
+
+    private int wordEnd() {
+        int i = position;
+        while (i < lineEnd && bytes[i] != ' ') i++;
+        return i;
+    }
+
+    /**
+     * @return The next word of the line.
+     * @throws ArrayIndexOutOfBoundsException if the line has no more words
+     */
+    public String nextWord() {
+        if (position > lineEnd) throw new ArrayIndexOutOfBoundsException("Line has no more words");
+        int end = wordEnd();
+        String word = new String(bytes, position, end - position, StandardCharsets.UTF_8);
+        position = end + 1;
+        return word;
+    }
+
+    /**
+     * Parses the next word of the line as a decimal int, as Integer.parseInt does.
+     * @throws NumberFormatException if the word is not a number
+     */
+    public int nextInt() {
+        if (position > lineEnd) throw new ArrayIndexOutOfBoundsException("Line has no more words");
+        int end = wordEnd();
+        int i = position;
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative || (i < end && bytes[i] == '+')) i++;
+        if (i == end) throw new NumberFormatException("For input string: \"" + word(position, end) + "\"");
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L)
+                throw new NumberFormatException("For input string: \"" + word(position, end) + "\"");
+            value = value * 10 + digit;
+        }
+        if (negative) value = -value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new NumberFormatException("For input string: \"" + word(position, end) + "\"");
+        position = end + 1;
+        return (int) value;
+    }
+
+    private String word(int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
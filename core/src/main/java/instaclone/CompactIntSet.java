@@ -0,0 +1,133 @@
+package instaclone;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of ints kept as a sorted array plus two small sorted delta buffers of recent additions and
+ * removals, used for adjacency lists such as a user's followers.
+ * It costs 4 bytes per element once merged, against 16 for IntHashSet at its load factor.
+ * The buffers hold up to about sqrt(size) elements before they are merged into the array,
+ * so an update costs O(sqrt(size)) amortized and a lookup is three binary searches.
+ * Iteration merges the buffers first and walks the array in ascending order.
+ */
+public class CompactIntSet {
+    private static final int MIN_DELTA = 16;
+    private static final int[] EMPTY = new int[0];
+
+    private int[] base = EMPTY; // merged elements, ascending
+    private int baseSize;
+    private int[] added = EMPTY; // elements not in base, ascending
+    private int addedCount;
+    private int[] removed = EMPTY; // elements of base that were removed, ascending
+    private int removedCount;
+
+    public CompactIntSet() {
+    }
+
+    /**
+     * Creates a set holding the first size elements of an ascending array without duplicates,
+     * which it takes over.
+     */
+    public CompactIntSet(int[] sorted, int size) {
+        base = sorted;
+        baseSize = size;
+    }
+
+    public int size() {
+        return baseSize + addedCount - removedCount;
+    }
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(int element) {
+        if (Arrays.binarySearch(added, 0, addedCount, element) >= 0) return true;
+        return Arrays.binarySearch(base, 0, baseSize, element) >= 0
+                && Arrays.binarySearch(removed, 0, removedCount, element) < 0;
+    }
+
+    /**
+     * @return true if the element was added, false if it was already present
+     */
+    public boolean add(int element) {
+        int r = Arrays.binarySearch(removed, 0, removedCount, element);
+        if (r >= 0) { // back into base
+            removedCount = deleteAt(removed, removedCount, r);
+            return true;
+        }
+        int a = Arrays.binarySearch(added, 0, addedCount, element);
+        if (a >= 0 || Arrays.binarySearch(base, 0, baseSize, element) >= 0) return false;
+        if (addedCount == added.length) added = grow(added);
+        System.arraycopy(added, -a - 1, added, -a, addedCount - (-a - 1));
+        added[-a - 1] = element;
+        addedCount++;
+        if (addedCount >= deltaLimit()) merge();
+        return true;
+    }
+
+    /**
+     * @return true if the element was removed, false if it was not present
+     */
+    public boolean remove(int element) {
+        int a = Arrays.binarySearch(added, 0, addedCount, element);
+        if (a >= 0) {
+            addedCount = deleteAt(added, addedCount, a);
+            return true;
+        }
+        if (Arrays.binarySearch(base, 0, baseSize, element) < 0) return false;
+        int r = Arrays.binarySearch(removed, 0, removedCount, element);
+        if (r >= 0) return false;
+        if (removedCount == removed.length) removed = grow(removed);
+        System.arraycopy(removed, -r - 1, removed, -r, removedCount - (-r - 1));
+        removed[-r - 1] = element;
+        removedCount++;
+        if (removedCount >= deltaLimit()) merge();
+        return true;
+    }
+
+    private static int[] grow(int[] array) {
+        return Arrays.copyOf(array, Math.max(4, array.length * 2));
+    }
+    private static int deleteAt(int[] array, int count, int i) {
+        System.arraycopy(array, i + 1, array, i, count - i - 1);
+        return count - 1;
+    }
+    private int deltaLimit() {
+        return Math.max(MIN_DELTA, (int) Math.sqrt(baseSize));
+    }
+
+    // folds both buffers into base in one pass
+    private void merge() {
+        if (addedCount == 0 && removedCount == 0) return;
+        int[] merged = new int[size()];
+        int n = 0, b = 0, a = 0, r = 0;
+        while (b < baseSize || a < addedCount) {
+            if (a == addedCount || (b < baseSize && base[b] < added[a])) {
+                int element = base[b++];
+                if (r < removedCount && removed[r] == element) {
+                    r++;
+                    continue;
+                }
+                merged[n++] = element;
+            } else {
+                merged[n++] = added[a++];
+            }
+        }
+        base = merged;
+        baseSize = n;
+        addedCount = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Calls the action for each element in ascending order.
+     * The action must not modify this set.
+     */
+    public void forEach(IntConsumer action) {
+        merge();
+        for (int i = 0; i < baseSize; i++) {
+            action.accept(base[i]);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package instaclone;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs commands on several threads while producing exactly the output of running them one
+ * by one. Users are partitioned over shards by ID, each shard owned by one worker thread that
+ * alone touches its users and their posts. A command is queued, in input order, on every shard
+ * whose state it reads or writes: its acting user's, plus the post's for see_post and
+ * toggle_like, the followee's for follow_user and unfollow_user, the viewed user's for
+ * see_all_posts_from_user and every followed user's for generate_feed and scroll_through_feed.
+ * The last worker to reach a command on its queue runs it while the others wait for it, so
+ * commands that share a shard run in input order and the rest run in parallel.
+ * A toggle_like in PULL mode writes its author's shard only to rerank the post, under the
+ * author's rankingLock, so it holds that shard as shared: the worker arriving there passes it
+ * instead of waiting, and waits for the tasks it passed before anything else. Likes of one
+ * author's posts then run at once on their likers' shards, while every reader of the author's
+ * ranking still runs after the likes before it and before those after it.
+ * Outputs of submitted commands are put back in input order through a ReorderBuffer; commands
+ * sent with call instead hand their outputs to the caller, as a server connection needs.
+ * A call may carry a pipelined batch. Consecutive commands of one user in it become a single
+ * task, which looks the user up once and runs with the shards of all its commands, and two
+ * toggle_likes of the same post in such a run, with only see_post and toggle_like between them,
+ * cancel out: both outputs are written but neither the like count nor the ranking changes.
+ * The submitting thread routes a post that exists to its author's shard. Until it exists, the
+ * commands naming it share a route holding the shards of all of them, so that its creation
+ * cannot overtake an earlier lookup, and the route is dropped once they have all run. A route
+ * of the shards a user follows grows with follow_user; once the user's follows and unfollows
+ * have all run, it shrinks to what the last unfollow_user left or goes with a user that does
+ * not exist. Workers hand finished tasks back to the submitting thread for that, so routes
+ * may be too large for a while, which costs parallelism but not correctness.
+ * The global registries are StripedHashMaps and IdTables, safe to update from any shard, so
+ * create_user and create_post stay on their user's shard. Outside PULL mode, feed caches of
+ * other users change on posts and likes, and the least recently read cache may be dropped by any
+ * command, so every command runs alone across all shards: more threads give no parallelism there.
+ */
+public class Engine implements Closeable {
+    /** Most shards, as shard sets are kept in a long. */
+    public static final int MAX_SHARDS = 64;
+    private static final int WINDOW = 1 << 14;
+    private static final Task STOP = new Task(null, 0, null);
+
+    private final Shard[] shards;
+    private final OutputSink out;
+    private final WriteAheadLog wal;
+    private final ReorderBuffer reorder = new ReorderBuffer(WINDOW);
+    private long submitted;
+    private final HashMap<String, Route> followedShards = new HashMap<>();
+    private final HashMap<String, Route> postShards = new HashMap<>(); // posts not known to exist
+    private final ConcurrentLinkedQueue<Task> settled = new ConcurrentLinkedQueue<>();
+    private volatile RuntimeException failure;
+
+    private static final class Task {
+        final Request[] requests; // commands of one acting user, run in order
+        final long seq;
+        final CompletableFuture<byte[][]> result; // null for a submitted task, whose output is reordered
+        final AtomicInteger arrivals; // shards that have not reached this task yet
+        boolean done; // guarded by this
+        boolean[] routed; // requests counted in a route's pending, null if none
+        long shared; // shards the task only reranks likes on, which pass it instead of waiting
+        Runnable action; // run instead of the requests, see runAlone
+        long[] following; // shards each routed unfollow_user left its user following, set by the worker
+
+        Task(Request[] requests, long seq, CompletableFuture<byte[][]> result) {
+            this.requests = requests;
+            this.seq = seq;
+            this.result = result;
+            arrivals = new AtomicInteger();
+        }
+    }
+
+    // shards the commands on a post or a user's follows must wait for, kept by the submitting thread
+    private static final class Route {
+        long shards;
+        int pending; // commands counted on it that have not been handed back
+    }
+
+    private final class Shard extends Thread {
+        final long bit;
+        final ArrayBlockingQueue<Task> queue = new ArrayBlockingQueue<>(WINDOW);
+        final ArrayDeque<Task> passed = new ArrayDeque<>(); // shared tasks left to other shards to run
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        final OutputSink capture = new OutputSink(Channels.newChannel(captured));
+
+        Shard(int i) {
+            super("shard-" + i);
+            setDaemon(true);
+            bit = 1L << i;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Task task;
+                while ((task = queue.take()) != STOP) {
+                    boolean shared = (task.shared & bit) != 0;
+                    if (!shared) {
+                        for (Task earlier : passed) await(earlier);
+                        passed.clear();
+                    }
+                    if (task.arrivals.decrementAndGet() > 0) {
+                        if (shared) {
+                            while (!passed.isEmpty() && isDone(passed.peekFirst())) passed.pollFirst();
+                            passed.addLast(task);
+                        }
+                        else await(task);
+                        continue;
+                    }
+                    byte[][] outputs = null;
+                    RuntimeException error = null;
+                    try {
+                        if (task.action == null) outputs = execute(task.requests, capture, captured);
+                        else {
+                            task.action.run();
+                            outputs = new byte[0][];
+                        }
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    captured.reset();
+                    if (task.routed != null) {
+                        if (error == null) recordFollowing(task);
+                        settled.add(task); // before done, so one user's tasks come back in order
+                    }
+                    synchronized (task) {
+                        task.done = true;
+                        task.notifyAll();
+                    }
+                    if (task.result != null) {
+                        if (error == null) task.result.complete(outputs);
+                        else task.result.completeExceptionally(error);
+                    } else {
+                        if (error != null && failure == null) failure = error;
+                        reorder.put(task.seq, error == null ? outputs[0] : new byte[0]);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void await(Task task) throws InterruptedException {
+            synchronized (task) {
+                while (!task.done) task.wait();
+            }
+        }
+        private boolean isDone(Task task) {
+            synchronized (task) {
+                return task.done;
+            }
+        }
+    }
+
+    /**
+     * Starts the workers.
+     * @param threads Number of shards, at most MAX_SHARDS.
+     * @param out Sink the outputs of submitted commands are written to in input order, or null if
+     *            commands are only sent with call.
+     * @param wal Log the state-changing commands are appended to before they are queued, or null.
+     */
+    public Engine(int threads, OutputSink out, WriteAheadLog wal) {
+        if (threads < 1 || threads > MAX_SHARDS)
+            throw new IllegalArgumentException("Engine needs 1 to " + MAX_SHARDS + " threads, got " + threads);
+        this.out = out;
+        this.wal = wal;
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+    }
+
+    // multiply-shift onto [0, shards), spreading sequential IDs like Hashing.indexFor
+    private long shardOf(String ID) {
+        long h = (ID.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return 1L << (int) ((h * shards.length) >>> 32);
+    }
+    private long allShards() {
+        return shards.length == MAX_SHARDS ? -1L : (1L << shards.length) - 1;
+    }
+
+    /**
+     * Reads the arguments of the command from the reader and queues it.
+     */
+    public void submit(Command command, CommandReader reader) throws IOException, InterruptedException {
+        if (command != Command.UNKNOWN) submit(Request.read(command, reader));
+    }
+
+    /**
+     * Queues a command; its output goes to the engine's sink in input order.
+     */
+    public synchronized void submit(Request request) throws InterruptedException {
+        while (submitted - reorder.next() >= reorder.capacity()) out.append(reorder.take());
+        enqueue(new Task(new Request[]{request}, submitted++, null));
+        byte[] output;
+        while ((output = reorder.poll()) != null) out.append(output);
+    }
+
+    /**
+     * Queues a pipelined batch of commands from any thread and returns their outputs once all
+     * have run. Batches are ordered as the calls reach the engine, so one caller's commands run
+     * in the order it sent them.
+     * @return The output of each command, failing with the exception a command threw, if any.
+     */
+    public synchronized CompletableFuture<byte[][]> call(Request[] batch) throws InterruptedException {
+        byte[][] outputs = new byte[batch.length][];
+        CompletableFuture<?>[] runs = new CompletableFuture<?>[batch.length];
+        int runCount = 0;
+        for (int start = 0, end; start < batch.length; start = end) {
+            String user = batch[start].words[0];
+            end = start + 1;
+            while (end < batch.length && batch[end].words[0].equals(user)) end++;
+            Request[] run = new Request[end - start];
+            System.arraycopy(batch, start, run, 0, run.length);
+            CompletableFuture<byte[][]> result = new CompletableFuture<>();
+            enqueue(new Task(run, -1, result));
+            int from = start;
+            runs[runCount++] = result.thenAccept(o -> System.arraycopy(o, 0, outputs, from, o.length));
+        }
+        return CompletableFuture.allOf(Arrays.copyOf(runs, runCount)).thenApply(v -> outputs);
+    }
+
+    /**
+     * Queues an action on every shard. It runs once all the commands queued before it have run,
+     * while no shard runs anything else, so it may read any user's state; the commands queued
+     * after it wait for it.
+     * @return Completes once the action has run, failing with the exception it threw, if any.
+     */
+    public synchronized CompletableFuture<Void> runAlone(Runnable action) throws InterruptedException {
+        CompletableFuture<byte[][]> result = new CompletableFuture<>();
+        Task task = new Task(new Request[0], -1, result);
+        task.action = action;
+        task.arrivals.set(shards.length);
+        for (Shard shard : shards) shard.queue.put(task);
+        return result.thenApply(outputs -> null);
+    }
+
+    // logs the task and queues it on the shards it touches; the caller holds the engine's lock
+    private void enqueue(Task task) throws InterruptedException {
+        settle();
+        long touched = 0; // shards the task holds alone
+        for (int i = 0; i < task.requests.length; i++) {
+            Request request = task.requests[i];
+            Command command = request.command;
+            if (wal != null) {
+                if (command == Command.SCROLL_THROUGH_FEED) wal.appendScroll(request.words[0], request.nums);
+                else if (command != Command.FOLLOWER_COUNT && command != Command.FOLLOWING_COUNT
+                        && command != Command.GENERATE_FEED && command != Command.SORT_POSTS) wal.append(command, request.words);
+            }
+            touched |= footprint(task, i);
+        }
+        task.shared &= ~touched; // shared only if none of its commands needs the shard alone
+        touched |= task.shared;
+        task.arrivals.set(Long.bitCount(touched));
+        for (int i = 0; i < shards.length; i++)
+            if ((touched & 1L << i) != 0) shards[i].queue.put(task);
+    }
+
+    // shards whose state the task's i-th command reads or writes; one a toggle_like only reranks
+    // its post on is added to the task's shared shards instead
+    private long footprint(Task task, int i) {
+        Command command = task.requests[i].command;
+        String[] words = task.requests[i].words;
+        long user = shardOf(words[0]);
+        long post = 0; // the author's shard, or those of the commands on the post so far
+        long ranking = 0; // the author's shard of a post a toggle_like only reranks
+        switch (command) {
+            case CREATE_POST: case SEE_POST: case TOGGLE_LIKE: {
+                Post existing = Post.getPost(words[1]); // created by a command queued earlier
+                if (existing != null) {
+                    if (command == Command.TOGGLE_LIKE) ranking = shardOf(existing.author.ID);
+                    else if (command == Command.SEE_POST) post = shardOf(existing.author.ID);
+                    break;
+                }
+                // a post looked up before it is created keeps the looker's shard, so the
+                // create_post that follows waits for the lookup instead of overtaking it
+                Route route = postShards.computeIfAbsent(words[1], id -> new Route());
+                post = route.shards;
+                route.shards |= user;
+                count(task, i, route);
+                break;
+            }
+            case FOLLOW_USER: case UNFOLLOW_USER: {
+                Route route = followedShards.computeIfAbsent(words[0], id -> new Route());
+                if (command == Command.FOLLOW_USER) route.shards |= shardOf(words[1]);
+                count(task, i, route);
+                break;
+            }
+            default:
+                break;
+        }
+        if (User.feedMode != FeedMode.PULL) return allShards();
+        switch (command) {
+            case FOLLOW_USER: case UNFOLLOW_USER: case SEE_ALL_POSTS_FROM_USER:
+                return user | shardOf(words[1]);
+            case CREATE_POST: case SEE_POST: case TOGGLE_LIKE:
+                task.shared |= ranking;
+                return user | post;
+            case GENERATE_FEED: case SCROLL_THROUGH_FEED: {
+                Route route = followedShards.getValue(words[0]);
+                return route == null ? user : user | route.shards;
+            }
+            default: // only the acting user's own state, or a new user or post
+                return user;
+        }
+    }
+
+    private static void count(Task task, int i, Route route) {
+        route.pending++;
+        if (task.routed == null) task.routed = new boolean[task.requests.length];
+        task.routed[i] = true;
+    }
+
+    // worker: what the routed unfollow_users left their user following, while the task's shards wait
+    private void recordFollowing(Task task) {
+        for (int i = 0; i < task.requests.length; i++) {
+            if (!task.routed[i] || task.requests[i].command != Command.UNFOLLOW_USER) continue;
+            if (task.following == null) task.following = new long[task.requests.length];
+            User user = User.getUser(task.requests[i].words[0]);
+            long shards = 0;
+            if (user != null && user.following != null)
+                for (User followed : user.following) shards |= shardOf(followed.ID);
+            task.following[i] = shards;
+        }
+    }
+
+    // takes back the routed commands that have run; a route none is left on is narrowed or dropped
+    private void settle() {
+        Task task;
+        while ((task = settled.poll()) != null) {
+            for (int i = 0; i < task.requests.length; i++) {
+                if (!task.routed[i]) continue;
+                Request request = task.requests[i];
+                if (request.command == Command.FOLLOW_USER || request.command == Command.UNFOLLOW_USER) {
+                    String userID = request.words[0];
+                    Route route = followedShards.getValue(userID);
+                    if (--route.pending > 0) continue;
+                    if (User.getUser(userID) == null) followedShards.remove(userID);
+                    else if (task.following != null && request.command == Command.UNFOLLOW_USER) {
+                        route.shards = task.following[i];
+                        if (route.shards == 0) followedShards.remove(userID);
+                    }
+                } else if (--postShards.getValue(request.words[1]).pending == 0) {
+                    postShards.remove(request.words[1]); // the post exists now, or was never created
+                }
+            }
+        }
+    }
+
+    // runs one user's commands and returns the output of each
+    private static byte[][] execute(Request[] requests, OutputSink out, ByteArrayOutputStream captured) {
+        byte[][] outputs = new byte[requests.length][];
+        int[] partner = cancellingPairs(requests);
+        Boolean[] firstLiked = null; // what the first toggle_like of each cancelled pair reported
+        String userID = requests[0].words[0];
+        User user = User.getUser(userID);
+        Metrics metrics = Metrics.active;
+        for (int i = 0; i < requests.length; i++) {
+            Request request = requests[i];
+            String[] w = request.words;
+            long startNanos = 0, startAllocated = 0;
+            if (metrics != null) {
+                startNanos = System.nanoTime();
+                startAllocated = Metrics.allocatedBytes();
+            }
+            switch (request.command) {
+                case CREATE_USER:
+                    Operations.createUser(w[0], out);
+                    user = User.getUser(userID);
+                    break;
+                case CREATE_POST: Operations.createPost(w[1], w[0], w[2], out); break;
+                case FOLLOW_USER: Operations.followUser(w[0], w[1], out); break;
+                case UNFOLLOW_USER: Operations.unfollowUser(w[0], w[1], out); break;
+                case FOLLOWER_COUNT: Operations.followerCount(w[0], out); break;
+                case FOLLOWING_COUNT: Operations.followingCount(w[0], out); break;
+                case SEE_POST: Operations.seePost(user, w[0], w[1], out); break;
+                case SEE_ALL_POSTS_FROM_USER: Operations.seeAllPosts(w[0], w[1], out); break;
+                case TOGGLE_LIKE:
+                    if (partner == null || partner[i] < 0) {
+                        Operations.toggleLike(user, w[0], w[1], out);
+                    } else if (partner[i] > i) {
+                        if (firstLiked == null) firstLiked = new Boolean[requests.length];
+                        firstLiked[partner[i]] = Operations.toggleLikeCancelled(user, w[0], w[1], out);
+                    } else if (firstLiked[i] == null) {
+                        Operations.toggleLike(user, w[0], w[1], out); // fails again, as nothing in between creates posts
+                    } else {
+                        Operations.reportLike(w[0], w[1], !firstLiked[i], out);
+                    }
+                    break;
+                case GENERATE_FEED: Operations.generateFeed(w[0], request.num, out); break;
+                case SCROLL_THROUGH_FEED: Operations.scrollThroughFeed(w[0], request.num, request.nums, out); break;
+                case SORT_POSTS: Operations.sortPosts(w[0], out); break;
+                default: break;
+            }
+            if (metrics != null && request.command != Command.UNKNOWN) {
+                metrics.record(request.command, w[0], w.length > 1 ? w[1] : null, startNanos, startAllocated);
+            }
+            out.flush();
+            outputs[i] = captured.toByteArray();
+            captured.reset();
+        }
+        return outputs;
+    }
+
+    /**
+     * Pairs up toggle_likes of the same post whose effects cancel out: nothing between them but
+     * see_post and toggle_like, which do not read like counts, and the same user throughout.
+     * @return For each request the index of its partner or -1, or null if there are no pairs.
+     */
+    private static int[] cancellingPairs(Request[] requests) {
+        if (requests.length < 2) return null;
+        int[] partner = null;
+        HashMap<String, Integer> open = null; // post ID to its unpaired toggle_like
+        for (int i = 0; i < requests.length; i++) {
+            Command command = requests[i].command;
+            if (command == Command.TOGGLE_LIKE) {
+                if (open == null) open = new HashMap<>();
+                String post = requests[i].words[1];
+                Integer first = open.getValue(post);
+                if (first == null) {
+                    open.put(post, i);
+                    continue;
+                }
+                open.remove(post);
+                if (partner == null) {
+                    partner = new int[requests.length];
+                    Arrays.fill(partner, -1);
+                }
+                partner[first] = i;
+                partner[i] = first;
+            } else if (command != Command.SEE_POST && open != null && open.size() > 0) {
+                open = new HashMap<>();
+            }
+        }
+        return partner;
+    }
+
+    /**
+     * Waits for every queued command, writes the remaining outputs and stops the workers.
+     * @throws IllegalStateException If a command failed on a worker.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            while (reorder.next() < submitted) out.append(reorder.take());
+            for (Shard shard : shards) shard.queue.put(STOP);
+            for (Shard shard : shards) shard.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing commands", e);
+        }
+        if (failure != null) throw new IllegalStateException("A command failed on a worker", failure);
+    }
+}
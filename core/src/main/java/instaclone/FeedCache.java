@@ -0,0 +1,161 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * A user's materialized feed: the best ranked posts they have not seen from the users they
+ * follow, kept up to date as posts are created, liked and seen (fan-out on write).
+ * A cache holds at most CAPACITY posts. Once it has dropped one it is truncated, and it keeps
+ * every post it left out ranked below every post it holds, so its top is still the top of the
+ * feed. At most MAX_FEEDS caches exist at once; the least recently read one is dropped to make room.
+ * Posts of celebrity authors (HYBRID mode) are never held; readers merge them in at read time.
+ */
+public class FeedCache {
+    public static int CAPACITY = 256;
+    /**
+     * Posts taken from the merge when a cache is built; offers grow it up to CAPACITY after that.
+     */
+    public static int INITIAL_FILL = 32;
+    public static int MAX_FEEDS = 100_000;
+
+    private final User owner;
+    private final AvlTree<Post> posts = new AvlTree<>();
+    private boolean truncated; // some feed posts are not held, all of them rank below posts.min()
+
+    // caches in read order, least recent first
+    private static FeedCache oldest, newest;
+    private static int count;
+    private FeedCache older, newer;
+
+    private FeedCache(User owner) {
+        this.owner = owner;
+        fill(INITIAL_FILL);
+    }
+
+    /**
+     * @return True if any user has a cache, so writes have to be fanned out.
+     */
+    public static boolean inUse() {
+        return count > 0;
+    }
+
+    /**
+     * Returns the user's cache, building it from their followed users if they have none.
+     */
+    public static FeedCache of(User user) {
+        FeedCache cache = user.feedCache;
+        if (cache == null) {
+            cache = new FeedCache(user);
+            user.feedCache = cache;
+            count++;
+            if (count > MAX_FEEDS && oldest != null) oldest.drop();
+        } else {
+            cache.unlink();
+        }
+        cache.linkNewest();
+        return cache;
+    }
+    private void unlink() {
+        if (older == null) oldest = newer; else older.newer = newer;
+        if (newer == null) newest = older; else newer.older = older;
+        older = newer = null;
+    }
+    private void linkNewest() {
+        older = newest;
+        if (newest == null) oldest = this; else newest.newer = this;
+        newest = this;
+    }
+    private void drop() {
+        unlink();
+        owner.feedCache = null;
+        count--;
+    }
+
+    private void fill(int want) {
+        int limit = Math.min(CAPACITY, Math.max(want, INITIAL_FILL));
+        FeedIterator feed = new FeedIterator(owner, author -> !author.celebrity);
+        while (posts.size() < limit && feed.hasNext())
+            posts.insert(feed.next());
+        truncated = feed.hasNext();
+    }
+
+    /**
+     * @return The top num posts of the feed, leaving out celebrity authors, or null if the cache
+     *         cannot tell them apart from posts it dropped (num is larger than CAPACITY).
+     */
+    public ArrayList<Post> top(int num) {
+        if (truncated && posts.size() < num) {
+            posts.clear();
+            fill(num);
+            if (truncated && posts.size() < num) return null;
+        }
+        ArrayList<Post> result = new ArrayList<>();
+        Iterator<Post> it = posts.descendingIterator();
+        for (int i = 0; i < num && it.hasNext(); i++)
+            result.add(it.next());
+        return result;
+    }
+
+    /**
+     * Adds a post that became part of the feed or was ranked anew, if it belongs among the held ones.
+     * The caller checks that the owner follows the author and has not seen the post.
+     */
+    public void offer(Post post) {
+        if (truncated && (posts.isEmpty() || post.compareTo(posts.min()) < 0))
+            return; // it stays with the dropped posts, below everything held
+        posts.insert(post);
+        trim();
+    }
+    private void trim() {
+        while (posts.size() > CAPACITY) {
+            posts.delete(posts.min());
+            truncated = true;
+        }
+    }
+
+    /**
+     * Removes a post whose rank is about to change or which left the feed.
+     */
+    public void remove(Post post) {
+        if (truncated && !posts.isEmpty() && post.compareTo(posts.min()) < 0)
+            return; // ranks below everything held, so it is not here
+        posts.delete(post);
+    }
+
+    /**
+     * Adds the unseen posts of a newly followed user.
+     */
+    public void addAuthor(User author) {
+        author.rankingLock.lock();
+        try {
+            if (author.rankedPosts == null || author.celebrity) return;
+            Iterator<Post> it = author.rankedPosts.descendingIterator();
+            while (it.hasNext()) {
+                Post post = it.next();
+                if (truncated && (posts.isEmpty() || post.compareTo(posts.min()) < 0))
+                    break; // the rest rank lower still
+                if (!owner.hasSeen(post)) {
+                    posts.insert(post);
+                    trim();
+                }
+            }
+        } finally {
+            author.rankingLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every held post of the given author, after an unfollow or see_all_posts_from_user.
+     */
+    public void removeAuthor(User author) {
+        ArrayList<Post> gone = new ArrayList<>();
+        Iterator<Post> it = posts.descendingIterator();
+        while (it.hasNext()) {
+            Post post = it.next();
+            if (post.author == author) gone.add(post);
+        }
+        for (Post post : gone)
+            posts.delete(post);
+    }
+}
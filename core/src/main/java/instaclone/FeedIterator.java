@@ -0,0 +1,243 @@
+package instaclone;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Merges the like-ordered post streams of the users a reader follows, yielding the posts the
+ * reader has not seen from the highest ranked down.
+ * The streams sit in a max heap keyed by their next post and each is advanced only as far as
+ * the posts taken, so taking k posts costs O(authors + k log authors) plus the seen posts skipped,
+ * and a caller that stops early pays nothing for the rest of the feed.
+ * Posts may be created, liked and seen between steps: a stream whose author's rankedPosts
+ * changed resumes below the rank its head had when it was reached, in O(log posts), and the
+ * FeedRanking decides how the posts still to come are ranked. A post is never returned twice.
+ * Each step reads an author's ranking under their rankingLock.
+ */
+public class FeedIterator implements Iterator<Post> {
+    private final User reader;
+    private final FeedRanking ranking;
+    private final int postLimit; // SNAPSHOT: posts from this index on were created after the start
+    private final Stream[] streams; // LIVE: every merged author's, to check for changes
+    // heap of the streams that have a head, 1-based like MaxHeap
+    private final Stream[] heap;
+    private int currentSize;
+    // indexes of the posts returned, listed until a stream is remade, which may come across
+    // them again, and then moved to the taken set for it to check
+    private int[] returned = new int[16];
+    private int returnedCount;
+    private IntHashSet taken;
+    private final Rank bound = new Rank();
+
+    // one followed user's posts from the head down
+    private static final class Stream {
+        final User author;
+        int firstUnseen; // SNAPSHOT: posts below this index were covered by see_all_posts_from_user
+        Iterator<Post> posts; // the author's rankedPosts after the head
+        int version; // the author's rankVersion when posts was made
+        Post head; // next post, null once the stream is used up
+        int headLikes; // likes of the head when it was reached, which rank it in the heap
+
+        Stream(User author) {
+            this.author = author;
+        }
+
+        // whether its head ranks above that of the other stream: by likes when reached, then ID
+        boolean above(Stream other) {
+            if (headLikes != other.headLikes) return headLikes > other.headLikes;
+            return head.ID.compareTo(other.head.ID) > 0;
+        }
+    }
+
+    // compares with posts as a post with these likes and ID would, so that a stream can resume
+    // below a post whose likes changed after it was reached
+    private static final class Rank implements Comparable<Post> {
+        int likes;
+        String ID;
+
+        Rank set(int likes, String ID) {
+            this.likes = likes;
+            this.ID = ID;
+            return this;
+        }
+
+        @Override
+        public int compareTo(Post post) {
+            if (likes != post.likes) return Integer.compare(likes, post.likes);
+            return ID.compareTo(post.ID);
+        }
+    }
+
+    public FeedIterator(User reader) {
+        this(reader, author -> true);
+    }
+
+    /**
+     * @param authors Selects the followed users whose posts are merged.
+     */
+    public FeedIterator(User reader, Predicate<User> authors) {
+        this(reader, authors, FeedRanking.SNAPSHOT);
+    }
+
+    /**
+     * @param authors Selects the followed users whose posts are merged.
+     * @param ranking How posts that change while the iterator is in use are ranked.
+     */
+    public FeedIterator(User reader, Predicate<User> authors, FeedRanking ranking) {
+        this.reader = reader;
+        this.ranking = ranking;
+        postLimit = Post.posts.size();
+        int capacity = reader.following == null ? 0 : reader.following.size();
+        heap = new Stream[capacity + 1];
+        streams = ranking == FeedRanking.LIVE ? new Stream[capacity] : null;
+        if (reader.following == null) return;
+        int s = 0;
+        for (User u : reader.following) {
+            if (!authors.test(u)) continue;
+            Stream stream;
+            if (ranking == FeedRanking.SNAPSHOT) { // only the posts there are now will be merged
+                if (u.posts == null) continue;
+                int seenCount = reader.indexMap == null ? 0 : reader.indexMap.getOrDefault(u.index, 0);
+                if (seenCount == u.posts.size()) continue; // everything was seen at once
+                stream = new Stream(u);
+                // the watermark counts posts in creation order, which is also post index order
+                stream.firstUnseen = seenCount == 0 ? 0 : u.posts.get(seenCount - 1).index + 1;
+            } else {
+                stream = streams[s++] = new Stream(u);
+            }
+            if (seek(stream, true)) heap[++currentSize] = stream;
+        }
+        for (int i = currentSize / 2; i > 0; i--)
+            percolateDown(i);
+    }
+
+    // moves the stream to its next post to be returned, or to its first one if fromTop; false
+    // when there is none
+    private boolean seek(Stream stream, boolean fromTop) {
+        ReentrantLock lock = stream.author.rankingLock;
+        lock.lock();
+        try {
+            return seekLocked(stream, fromTop);
+        } finally {
+            lock.unlock();
+        }
+    }
+    private boolean seekLocked(Stream stream, boolean fromTop) {
+        AvlTree<Post> ranked = stream.author.rankedPosts;
+        if (ranked == null) return false;
+        if (fromTop || stream.version != stream.author.rankVersion) {
+            // a new stream, or the old one no longer matches the tree
+            stream.posts = fromTop ? ranked.descendingIterator()
+                    : ranked.descendingIterator(bound.set(stream.headLikes, stream.head.ID));
+            stream.version = stream.author.rankVersion;
+            if (taken == null && returnedCount > 0) {
+                taken = new IntHashSet(4 * returnedCount);
+                for (int i = 0; i < returnedCount; i++) taken.add(returned[i]);
+            }
+        }
+        Iterator<Post> posts = stream.posts;
+        while (posts.hasNext()) {
+            Post post = posts.next();
+            if (skip(stream, post)) continue;
+            stream.head = post;
+            stream.headLikes = post.likes;
+            return true;
+        }
+        stream.head = null;
+        return false;
+    }
+
+    // whether the post was returned already or seen by the reader
+    private boolean skip(Stream stream, Post post) {
+        if (taken != null && taken.contains(post.index)) return true;
+        if (ranking == FeedRanking.LIVE) return reader.hasSeen(post);
+        return post.index < stream.firstUnseen || post.index >= postLimit
+                || (reader.SeenPosts != null && reader.SeenPosts.contains(post.index));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ranking == FeedRanking.LIVE) {
+            refresh();
+            // a head seen after it was reached, by see_post between steps, makes way for the next post
+            while (currentSize > 0 && skip(heap[1], heap[1].head)) {
+                if (seek(heap[1], false)) percolateDown(1);
+                else removeTop();
+            }
+        }
+        return currentSize > 0;
+    }
+
+    @Override
+    public Post next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Post top = heap[1].head;
+        if (taken != null) taken.add(top.index);
+        else {
+            if (returnedCount == returned.length) returned = Arrays.copyOf(returned, 2 * returnedCount);
+            returned[returnedCount++] = top.index;
+        }
+        if (seek(heap[1], false)) percolateDown(1);
+        else removeTop();
+        return top;
+    }
+
+    // LIVE: reads the authors whose rankedPosts changed since they were read again from the top
+    private void refresh() {
+        boolean changed = false;
+        for (Stream stream : streams) {
+            if (stream == null) break;
+            ReentrantLock lock = stream.author.rankingLock;
+            lock.lock();
+            try {
+                if (stream.version == stream.author.rankVersion) continue;
+                seek(stream, true);
+                changed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!changed) return;
+        currentSize = 0;
+        for (Stream stream : streams) {
+            if (stream == null) break;
+            if (stream.head != null) heap[++currentSize] = stream;
+        }
+        for (int i = currentSize / 2; i > 0; i--)
+            percolateDown(i);
+    }
+
+    // replaces the spent stream on top with the last one
+    private void removeTop() {
+        heap[1] = heap[currentSize];
+        heap[currentSize--] = null;
+        if (currentSize > 0)
+            percolateDown(1);
+    }
+
+    private void percolateDown(int hole) {
+        Stream stream = heap[hole];
+        int child;
+
+        while (hole * 2 <= currentSize) {
+            child = hole * 2;
+
+            if (child != currentSize && heap[child + 1].above(heap[child]))
+                child++;
+
+            if (heap[child].above(stream)) {
+                heap[hole] = heap[child];
+            } else {
+                break;
+            }
+            hole = child;
+        }
+
+        heap[hole] = stream;
+    }
+}
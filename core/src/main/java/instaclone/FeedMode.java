@@ -0,0 +1,32 @@
+package instaclone;
+
+/**
+ * How feeds are built.
+ */
+public enum FeedMode {
+    /**
+     * Fan-out on read: every feed request merges the followed users' posts (FeedIterator).
+     */
+    PULL,
+    /**
+     * Fan-out on write: each reader keeps a FeedCache that posts, likes, sees and follows
+     * update as they happen, and feed requests read the top of it.
+     */
+    PUSH,
+    /**
+     * PUSH for most authors, PULL for celebrities: authors with at least
+     * User.CELEBRITY_FOLLOWERS followers are left out of feed caches and their posts are merged
+     * in at read time, so a post or like of theirs costs no fan-out.
+     */
+    HYBRID;
+
+    /**
+     * @return The mode with the given name, as in pull, push or hybrid, or null if there is none.
+     */
+    public static FeedMode named(String name) {
+        for (FeedMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) return mode;
+        }
+        return null;
+    }
+}
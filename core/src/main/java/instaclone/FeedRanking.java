@@ -0,0 +1,22 @@
+package instaclone;
+
+/**
+ * How a feed cursor ranks the posts it has yet to return while posts change under it, see
+ * User.feedCursor.
+ */
+public enum FeedRanking {
+    /**
+     * Posts created after the cursor started are left out, and each author's posts are resumed
+     * below the rank the last one taken had when it was reached. Liking, unliking or seeing a post
+     * the cursor returned, as scroll_through_feed does, changes nothing it returns after. Posts
+     * seen meanwhile are left out unless the cursor has reached them already.
+     */
+    SNAPSHOT,
+    /**
+     * Every post returned is the best unseen one at the time: authors who posted or whose posts
+     * were re-ranked since the last step are read again from their top. Checking for that costs
+     * a look at every merged author on each step. Users followed after the cursor started are
+     * not merged.
+     */
+    LIVE
+}
@@ -0,0 +1,444 @@
+package instaclone;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * This class implements a hash map data structure.
+ * Entries live in parallel key/value/hash arrays and collisions are resolved by linear probing,
+ * so a lookup walks neighbouring slots instead of chasing list nodes.
+ * <p>
+ * A map created in incremental mode does not move every entry when it grows. It keeps the
+ * previous table next to the new one and each put/remove migrates a few old slots, so the
+ * cost of a resize is spread over the operations that follow it.
+ */
+public class HashMap<K, V> implements Iterable<K> {
+    private int tableSize;
+    private int numElements;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes; // cached hashCode of the key in each slot, 0 for an empty slot
+    private int resizeAt; // numElements that triggers the next rehash
+
+    private final boolean incremental;
+    // previous table while an incremental resize is in progress, null otherwise
+    private Object[] oldKeys;
+    private Object[] oldValues;
+    private int[] oldHashes;
+    private int migrated; // old slots below this index have been moved to the new table
+    /** Old slots moved per put/remove. Must be at least 2 so a migration ends before the next resize. */
+    private static final int MIGRATE_STEP = 8;
+    /** Marks migrated or removed slots of the old table, which must not end a probe sequence. */
+    private static final Object MOVED = new Object();
+    private TableStats stats; // where rehashes are counted, null unless tracked
+
+    public HashMap(int tableSize, boolean incremental) {
+        this.tableSize = Hashing.capacityFor(tableSize);
+        this.incremental = incremental;
+        resizeAt = (int) (this.tableSize * Hashing.MAX_LOAD);
+        keys = new Object[this.tableSize];
+        values = new Object[this.tableSize];
+        hashes = new int[this.tableSize];
+    }
+    public HashMap(int tableSize) {
+        this(tableSize, false);
+    }
+    public HashMap() {
+        this(101);
+    }
+    /**
+     * Hash codes are cached per slot and 0 marks an empty slot, so probing scans only the int array
+     * and touches a key only when its hash matches. A key whose hashCode is 0 is stored under 1.
+     */
+    private static int hashOf(Object key) {
+        int h = key.hashCode();
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot that ends its probe sequence.
+     * @param key the key
+     * @param h the hash code of the key
+     * @return the slot index
+     */
+    private int findSlot(Object key, int h) {
+        int i = Hashing.indexFor(h, tableSize);
+        while (hashes[i] != 0) {
+            if (hashes[i] == h && keys[i].equals(key)) return i;
+            if (++i == tableSize) i = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the key in the old table of an incremental resize.
+     * @return the slot index, or -1 if no resize is in progress or the key is not there
+     */
+    private int findOldSlot(Object key, int h) {
+        if (oldKeys == null) return -1;
+        int size = oldKeys.length;
+        int i = Hashing.indexFor(h, size);
+        while (oldHashes[i] != 0) {
+            if (oldHashes[i] == h && oldKeys[i] != MOVED && oldKeys[i].equals(key)) return i;
+            if (++i == size) i = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * This method puts the key-value pair into the hash map.
+     * If the key already exists in the hash map, the value is updated.
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) {
+            values[i] = value;
+            return;
+        }
+        int j = findOldSlot(key, h);
+        if (j >= 0) {
+            oldValues[j] = value;
+            return;
+        }
+        insertAt(i, key, value, h);
+    }
+
+    /**
+     * Fills an empty slot found by findSlot and grows the table if needed.
+     */
+    private void insertAt(int i, K key, V value, int h) {
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = h;
+        numElements++;
+        if (numElements >= resizeAt) rehash();
+    }
+
+    /**
+     * This method puts the key-value pair only if the key is not already in the hash map.
+     * @param key the key
+     * @param value the value
+     * @return the value already associated with the key, or null if the pair was inserted
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (V) values[i];
+        int j = findOldSlot(key, h);
+        if (j >= 0) return (V) oldValues[j];
+        insertAt(i, key, value, h);
+        return null;
+    }
+
+    /**
+     * This method returns the value associated with the key, creating and inserting it first if absent.
+     * The function must not modify this hash map.
+     * @param key the key
+     * @param create computes the value for an absent key
+     * @return the existing or newly created value
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (V) values[i];
+        int j = findOldSlot(key, h);
+        if (j >= 0) return (V) oldValues[j];
+        V value = create.apply(key);
+        insertAt(i, key, value, h);
+        return value;
+    }
+
+    /**
+     * This method returns the value associated with the key, or a default if the key is absent.
+     * @param key the key
+     * @param defaultValue the value to return for an absent key
+     * @return the value associated with the key, or defaultValue
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(K key, V defaultValue) {
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (V) values[i];
+        int j = findOldSlot(key, h);
+        return j >= 0 ? (V) oldValues[j] : defaultValue;
+    }
+
+    /**
+     * This method inserts the value for an absent key, or replaces the current value with
+     * the result of combining it with the given one. A null result removes the key.
+     * The function must not modify this hash map.
+     * @param key the key
+     * @param value the value to insert or combine
+     * @param combine combines the current value and the given value
+     * @return the new value associated with the key, or null if it was removed
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> combine) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) {
+            V merged = combine.apply((V) values[i], value);
+            if (merged == null) {
+                deleteSlot(i);
+                numElements--;
+            } else {
+                values[i] = merged;
+            }
+            return merged;
+        }
+        int j = findOldSlot(key, h);
+        if (j < 0) {
+            insertAt(i, key, value, h);
+            return value;
+        }
+        V merged = combine.apply((V) oldValues[j], value);
+        if (merged == null) {
+            deleteOldSlot(j);
+        } else {
+            oldValues[j] = merged;
+        }
+        return merged;
+    }
+
+    /**
+     * This method returns the key stored in the hash map that is equal to the given key.
+     * @param key the key
+     * @return the stored key, or null if it is not present
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(K key) {
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (K) keys[i];
+        int j = findOldSlot(key, h);
+        return j >= 0 ? (K) oldKeys[j] : null;
+    }
+
+    /**
+     * This method returns the value associated with the key.
+     * @param key the key
+     * @return the value associated with the key
+     */
+    public V getValue(K key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * This method checks whether the key is in the hash map.
+     * @param key the key
+     * @return true if the key is present, false otherwise
+     */
+    public boolean contains(K key) {
+        int h = hashOf(key);
+        return hashes[findSlot(key, h)] != 0 || findOldSlot(key, h) >= 0;
+    }
+
+    /**
+     * This method removes the key-value pair from the hash map.
+     * @param key the key
+     * @return true if the key-value pair was removed, false otherwise
+     */
+    public boolean remove(K key) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) {
+            deleteSlot(i);
+            numElements--;
+            return true;
+        }
+        int j = findOldSlot(key, h);
+        if (j < 0) return false;
+        deleteOldSlot(j);
+        return true;
+    }
+
+    /**
+     * This method removes the key-value pair from the hash map and returns its value.
+     * @param key the key
+     * @return the removed value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V removeAndGet(K key) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) {
+            V value = (V) values[i];
+            deleteSlot(i);
+            numElements--;
+            return value;
+        }
+        int j = findOldSlot(key, h);
+        if (j < 0) return null;
+        V value = (V) oldValues[j];
+        deleteOldSlot(j);
+        return value;
+    }
+
+    /**
+     * Empties the slot and shifts later entries of the same probe run back into it,
+     * so lookups never need tombstones.
+     * @param hole the slot to empty
+     */
+    private void deleteSlot(int hole) {
+        int i = hole;
+        while (true) {
+            if (++i == tableSize) i = 0;
+            if (hashes[i] == 0) break;
+            int home = Hashing.indexFor(hashes[i], tableSize);
+            if (Hashing.canShiftBack(home, hole, i)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hashes[hole] = hashes[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        hashes[hole] = 0;
+        values[hole] = null;
+    }
+
+    /**
+     * Removes an entry from the old table. Shifting entries there could move them behind the
+     * migration cursor, so the slot is marked instead; the old table is dropped when migration ends.
+     */
+    private void deleteOldSlot(int j) {
+        oldKeys[j] = MOVED;
+        oldValues[j] = null;
+        numElements--;
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    /**
+     * This method increases the table size and moves the elements to the new table,
+     * all at once or, in incremental mode, a few slots per following put/remove.
+     * Keys are known to be distinct, so they are placed without any equality checks.
+     */
+    private void rehash() {
+        if (tableSize == Hashing.MAX_CAPACITY) throw new IllegalStateException("HashMap cannot grow past " + numElements + " elements");
+        long start = stats == null ? 0 : System.nanoTime();
+        if (oldKeys != null) migrateAll(); // cannot happen with MIGRATE_STEP >= 2, kept as a guard
+        oldKeys = keys;
+        oldValues = values;
+        oldHashes = hashes;
+        migrated = 0;
+        tableSize <<= 1;
+        resizeAt = (int) (tableSize * Hashing.MAX_LOAD);
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        if (!incremental) migrateAll();
+        if (stats != null) stats.rehashed(System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the rehashes of this map in stats from now on, or stops counting them if null.
+     */
+    public void trackStats(TableStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Adds this map's table, and the old one during an incremental resize, to the scan of stats.
+     */
+    public void scanStats(TableStats stats) {
+        stats.addTable(hashes, keys, null, 3);
+        if (oldKeys != null) stats.addTable(oldHashes, oldKeys, MOVED, 3);
+    }
+
+    private void migrateStep() {
+        if (oldKeys != null) migrate(MIGRATE_STEP);
+    }
+
+    private void migrateAll() {
+        migrate(oldKeys.length);
+    }
+
+    /**
+     * Moves up to count old slots into the new table and drops the old table once all are moved.
+     */
+    private void migrate(int count) {
+        int end = Math.min(migrated + count, oldKeys.length);
+        for (int j = migrated; j < end; j++) {
+            Object key = oldKeys[j];
+            if (key == null || key == MOVED) continue;
+            int i = Hashing.indexFor(oldHashes[j], tableSize);
+            while (hashes[i] != 0) {
+                if (++i == tableSize) i = 0;
+            }
+            keys[i] = key;
+            values[i] = oldValues[j];
+            hashes[i] = oldHashes[j];
+            oldKeys[j] = MOVED;
+            oldValues[j] = null;
+        }
+        migrated = end;
+        if (migrated == oldKeys.length) {
+            oldKeys = null;
+            oldValues = null;
+            oldHashes = null;
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new HashMapIterator();
+    }
+    /**
+     * This class implements an iterator for the hash map to iterate over keys when necessary.
+     * During an incremental resize it walks the new table and then the old one.
+     */
+    private class HashMapIterator implements Iterator<K> {
+        private Object[] currentKeys = keys;
+        private int currentSlot = 0;
+
+        public HashMapIterator() {
+            // Move to the first occupied slot
+            moveToNextOccupiedSlot();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return currentSlot < currentKeys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K currentKey = (K) currentKeys[currentSlot++];
+            moveToNextOccupiedSlot();
+            return currentKey;
+        }
+
+        private void moveToNextOccupiedSlot() {
+            while (true) {
+                while (currentSlot < currentKeys.length
+                        && (currentKeys[currentSlot] == null || currentKeys[currentSlot] == MOVED)) {
+                    currentSlot++;
+                }
+                if (currentSlot < currentKeys.length || currentKeys != keys || oldKeys == null) return;
+                currentKeys = oldKeys;
+                currentSlot = 0;
+            }
+        }
+    }
+
+}
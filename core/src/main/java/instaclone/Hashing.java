@@ -0,0 +1,41 @@
+package instaclone;
+
+/**
+ * Table sizing and slot selection shared by the open-addressing collections
+ * (HashMap, MyHashSet and the int-keyed maps and sets).
+ */
+final class Hashing {
+    static final double MAX_LOAD = 0.5;
+    static final int MIN_CAPACITY = 8;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private Hashing() {
+    }
+
+    /**
+     * Fibonacci hashing: multiplies by 2^32 / golden ratio and keeps the top bits, so sequential
+     * IDs spread over the whole power-of-two table instead of filling one contiguous probe run.
+     * @param h the hash code, or the key itself for int keys
+     * @param size the table size, a power of two
+     * @return the home slot
+     */
+    static int indexFor(int h, int size) {
+        return (h * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(size) + 1);
+    }
+
+    /**
+     * Rounds a requested size up to a power of two between MIN_CAPACITY and MAX_CAPACITY.
+     */
+    static int capacityFor(int size) {
+        if (size >= MAX_CAPACITY) return MAX_CAPACITY;
+        return Integer.highestOneBit(Math.max(size, MIN_CAPACITY) - 1) << 1;
+    }
+
+    /**
+     * Backward-shift deletion test: whether the entry in slot i, whose home slot is home,
+     * may move back into the empty slot hole without falling before its home slot.
+     */
+    static boolean canShiftBack(int home, int hole, int i) {
+        return i > hole ? (home <= hole || home > i) : (home <= hole && home > i);
+    }
+}
@@ -0,0 +1,61 @@
+package instaclone;
+
+import java.util.function.IntFunction;
+
+/**
+ * Interning table that gives each registered object a dense int index, in creation order,
+ * and maps the index back to the object. Users and posts are numbered this way so that
+ * per-user state can be kept in int-keyed collections instead of maps keyed by ID strings.
+ * Items are added under a lock, as users and posts may be created on several threads, and
+ * get reads the size before the array, so an index it accepts is always in the array it reads.
+ */
+public class IdTable<T> {
+    private volatile Object[] items = new Object[16];
+    private volatile int size;
+
+    /**
+     * Registers the item.
+     * @return the index assigned to it
+     */
+    public synchronized int add(T item) {
+        int index = size;
+        store(index, item);
+        return index;
+    }
+
+    /**
+     * Creates an item that keeps its own index, with the index it gets, and registers it once
+     * created, so its constructor does not have to hand out an object it is still building.
+     * @return the item
+     */
+    public synchronized T add(IntFunction<T> create) {
+        int index = size;
+        T item = create.apply(index);
+        store(index, item);
+        return item;
+    }
+
+    private void store(int index, T item) {
+        Object[] current = items;
+        if (index == current.length) {
+            Object[] bigger = new Object[current.length * 2];
+            System.arraycopy(current, 0, bigger, 0, index);
+            items = current = bigger;
+        }
+        current[index] = item;
+        size = index + 1; // publishes the item and, before it, any bigger array
+    }
+
+    /**
+     * @return the item with the given index
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("No item with index " + index);
+        return (T) items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,95 @@
+package instaclone;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Hash set of ints, used for per-user membership sets over dense user and post indexes.
+ * Elements are stored as element + 1 so that a zeroed slot reads as empty; -1 cannot be stored.
+ */
+public class IntHashSet {
+    private int tableSize;
+    private int numElements;
+    private int[] keys; // element + 1, 0 for an empty slot
+    private int resizeAt;
+
+    public IntHashSet(int tableSize) {
+        this.tableSize = Hashing.capacityFor(tableSize);
+        resizeAt = (int) (this.tableSize * Hashing.MAX_LOAD);
+        keys = new int[this.tableSize];
+    }
+    public IntHashSet() {
+        this(Hashing.MIN_CAPACITY);
+    }
+
+    // slot holding the element, or the empty slot that ends its probe sequence
+    private int findSlot(int stored) {
+        int i = Hashing.indexFor(stored, tableSize);
+        while (keys[i] != 0 && keys[i] != stored) {
+            if (++i == tableSize) i = 0;
+        }
+        return i;
+    }
+
+    public boolean contains(int key) {
+        return keys[findSlot(key + 1)] != 0;
+    }
+
+    /**
+     * @return true if the element was added, false if it was already present
+     */
+    public boolean add(int key) {
+        int i = findSlot(key + 1);
+        if (keys[i] != 0) return false;
+        keys[i] = key + 1;
+        numElements++;
+        if (numElements >= resizeAt) rehash();
+        return true;
+    }
+
+    /**
+     * @return true if the element was removed, false if it was not present
+     */
+    public boolean remove(int key) {
+        int i = findSlot(key + 1);
+        if (keys[i] == 0) return false;
+        int hole = i;
+        while (true) { // backward-shift deletion, see HashMap.deleteSlot
+            if (++i == tableSize) i = 0;
+            if (keys[i] == 0) break;
+            if (Hashing.canShiftBack(Hashing.indexFor(keys[i], tableSize), hole, i)) {
+                keys[hole] = keys[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        numElements--;
+        return true;
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    /** Passes every element to the action; the order is unspecified. */
+    public void forEach(IntConsumer action) {
+        for (int stored : keys) {
+            if (stored != 0) action.accept(stored - 1);
+        }
+    }
+
+    private void rehash() {
+        if (tableSize == Hashing.MAX_CAPACITY) throw new IllegalStateException("IntHashSet cannot grow past " + numElements + " elements");
+        int[] oldKeys = keys;
+        tableSize <<= 1;
+        resizeAt = (int) (tableSize * Hashing.MAX_LOAD);
+        keys = new int[tableSize];
+        for (int stored : oldKeys) {
+            if (stored == 0) continue;
+            int i = Hashing.indexFor(stored, tableSize);
+            while (keys[i] != 0) {
+                if (++i == tableSize) i = 0;
+            }
+            keys[i] = stored;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package instaclone;
+
+/**
+ * Hash map from int keys to int values, used for per-user counters and watermarks keyed by a dense index.
+ * Keys are stored as key + 1 so that a zeroed slot reads as empty; -1 cannot be used as a key.
+ */
+public class IntIntHashMap {
+    private int tableSize;
+    private int numElements;
+    private int[] keys; // key + 1, 0 for an empty slot
+    private int[] values;
+    private int resizeAt;
+
+    public IntIntHashMap(int tableSize) {
+        this.tableSize = Hashing.capacityFor(tableSize);
+        resizeAt = (int) (this.tableSize * Hashing.MAX_LOAD);
+        keys = new int[this.tableSize];
+        values = new int[this.tableSize];
+    }
+    public IntIntHashMap() {
+        this(Hashing.MIN_CAPACITY);
+    }
+
+    // slot holding the key, or the empty slot that ends its probe sequence
+    private int findSlot(int stored) {
+        int i = Hashing.indexFor(stored, tableSize);
+        while (keys[i] != 0 && keys[i] != stored) {
+            if (++i == tableSize) i = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Puts the key-value pair into the map, replacing the value of an existing key.
+     */
+    public void put(int key, int value) {
+        int i = findSlot(key + 1);
+        values[i] = value;
+        if (keys[i] != 0) return;
+        keys[i] = key + 1;
+        numElements++;
+        if (numElements >= resizeAt) rehash();
+    }
+
+    /**
+     * @return the value associated with the key, or defaultValue if the key is absent
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int i = findSlot(key + 1);
+        return keys[i] != 0 ? values[i] : defaultValue;
+    }
+
+    public boolean contains(int key) {
+        return keys[findSlot(key + 1)] != 0;
+    }
+
+    /**
+     * Removes the key and its value.
+     * @return true if the key was present
+     */
+    public boolean remove(int key) {
+        int i = findSlot(key + 1);
+        if (keys[i] == 0) return false;
+        int hole = i;
+        while (true) { // backward-shift deletion, see HashMap.deleteSlot
+            if (++i == tableSize) i = 0;
+            if (keys[i] == 0) break;
+            if (Hashing.canShiftBack(Hashing.indexFor(keys[i], tableSize), hole, i)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        numElements--;
+        return true;
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    /**
+     * Receives the entries of an IntIntHashMap.
+     */
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    /**
+     * Passes every entry to the action, in table order.
+     */
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < tableSize; i++) {
+            if (keys[i] != 0) action.accept(keys[i] - 1, values[i]);
+        }
+    }
+
+    private void rehash() {
+        if (tableSize == Hashing.MAX_CAPACITY) throw new IllegalStateException("IntIntHashMap cannot grow past " + numElements + " elements");
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        tableSize <<= 1;
+        resizeAt = (int) (tableSize * Hashing.MAX_LOAD);
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = Hashing.indexFor(oldKeys[j], tableSize);
+            while (keys[i] != 0) {
+                if (++i == tableSize) i = 0;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
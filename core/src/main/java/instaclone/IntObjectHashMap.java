@@ -0,0 +1,165 @@
+package instaclone;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash map from int keys to objects, used for per-user state keyed by the dense index of a user or post.
+ * It probes like HashMap but stores keys in an int array, so there is no boxing and no equals call.
+ * Keys are stored as key + 1 so that a zeroed slot reads as empty; -1 cannot be used as a key.
+ */
+public class IntObjectHashMap<V> implements Iterable<V> {
+    private int tableSize;
+    private int numElements;
+    private int[] keys; // key + 1, 0 for an empty slot
+    private Object[] values;
+    private int resizeAt;
+
+    public IntObjectHashMap(int tableSize) {
+        this.tableSize = Hashing.capacityFor(tableSize);
+        resizeAt = (int) (this.tableSize * Hashing.MAX_LOAD);
+        keys = new int[this.tableSize];
+        values = new Object[this.tableSize];
+    }
+    public IntObjectHashMap() {
+        this(Hashing.MIN_CAPACITY);
+    }
+
+    // slot holding the key, or the empty slot that ends its probe sequence
+    private int findSlot(int stored) {
+        int i = Hashing.indexFor(stored, tableSize);
+        while (keys[i] != 0 && keys[i] != stored) {
+            if (++i == tableSize) i = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Puts the key-value pair into the map, replacing the value of an existing key.
+     */
+    public void put(int key, V value) {
+        int i = findSlot(key + 1);
+        if (keys[i] == 0) {
+            insertAt(i, key + 1, value);
+        } else {
+            values[i] = value;
+        }
+    }
+
+    /**
+     * Puts the key-value pair only if the key is absent.
+     * @return the value already associated with the key, or null if the pair was inserted
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value) {
+        int i = findSlot(key + 1);
+        if (keys[i] != 0) return (V) values[i];
+        insertAt(i, key + 1, value);
+        return null;
+    }
+
+    private void insertAt(int i, int stored, V value) {
+        keys[i] = stored;
+        values[i] = value;
+        numElements++;
+        if (numElements >= resizeAt) rehash();
+    }
+
+    /**
+     * @return the value associated with the key, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(int key) {
+        return (V) values[findSlot(key + 1)];
+    }
+
+    public boolean contains(int key) {
+        return keys[findSlot(key + 1)] != 0;
+    }
+
+    /**
+     * Removes the key and its value.
+     * @return the removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = findSlot(key + 1);
+        if (keys[i] == 0) return null;
+        V value = (V) values[i];
+        deleteSlot(i);
+        numElements--;
+        return value;
+    }
+
+    // backward-shift deletion, see HashMap.deleteSlot
+    private void deleteSlot(int hole) {
+        int i = hole;
+        while (true) {
+            if (++i == tableSize) i = 0;
+            if (keys[i] == 0) break;
+            if (Hashing.canShiftBack(Hashing.indexFor(keys[i], tableSize), hole, i)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+    }
+
+    public int size() {
+        return numElements;
+    }
+
+    private void rehash() {
+        if (tableSize == Hashing.MAX_CAPACITY) throw new IllegalStateException("IntObjectHashMap cannot grow past " + numElements + " elements");
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        tableSize <<= 1;
+        resizeAt = (int) (tableSize * Hashing.MAX_LOAD);
+        keys = new int[tableSize];
+        values = new Object[tableSize];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = Hashing.indexFor(oldKeys[j], tableSize);
+            while (keys[i] != 0) {
+                if (++i == tableSize) i = 0;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    /** Iterates over the values; the order is unspecified. */
+    @Override
+    public Iterator<V> iterator() {
+        return new ValueIterator();
+    }
+    private class ValueIterator implements Iterator<V> {
+        private int currentSlot = 0;
+
+        ValueIterator() {
+            moveToNextOccupiedSlot();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return currentSlot < tableSize;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            V value = (V) values[currentSlot++];
+            moveToNextOccupiedSlot();
+            return value;
+        }
+
+        private void moveToNextOccupiedSlot() {
+            while (currentSlot < tableSize && keys[currentSlot] == 0) {
+                currentSlot++;
+            }
+        }
+    }
+}
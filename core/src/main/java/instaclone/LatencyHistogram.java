@@ -0,0 +1,76 @@
+package instaclone;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of durations in nanoseconds, with log-linear buckets like an HDR
+ * histogram: every power of two is split into SUB equal buckets, so any recorded value is known
+ * to within 1 / SUB, about 3%, whatever its size. Recording is a few bit operations and an
+ * atomic increment, and the whole histogram is a fixed array of counts.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    // values below SUB get a bucket each, then SUB buckets for each power of two up to 2^62
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    private static int bucketOf(long value) {
+        if (value < SUB) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + sub;
+    }
+
+    // largest value that falls in the bucket
+    private static long highestIn(int bucket) {
+        if (bucket < SUB) return bucket;
+        int shift = bucket / SUB - 1;
+        long lowest = (long) (SUB + bucket % SUB) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Adds one duration. Negative ones, from a clock going back, count as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+    public long total() {
+        return total.sum();
+    }
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param fraction Between 0 and 1, for example 0.99 for the 99th percentile.
+     * @return The duration that the given fraction of recorded ones do not exceed, rounded up to
+     *         its bucket and capped at the maximum, or 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) n += counts.get(b);
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(highestIn(b), max());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,210 @@
+package instaclone;
+
+import java.io.*;
+import java.nio.file.Path;
+
+public class Main {
+    private static final String USAGE = "Usage: java instaclone.Main <input_file> <output_file> [pull|push|hybrid]"
+            + " [--restore <snapshot_file>] [--snapshot <snapshot_file>]"
+            + " [--wal <log_file>] [--sync-records <n>] [--sync-millis <ms>] [--threads <n>]"
+            + " [--metrics <json_file>] [--metrics-millis <ms>]" + System.lineSeparator()
+            + "--threads runs commands in parallel in pull mode only; push and hybrid run them one at a time.";
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        String inputFileName = args[0];
+        String outputFileName = args[1];
+        String restoreFrom = null; // snapshot loaded before the input is run
+        String snapshotTo = null; // snapshot written after it
+        String walFile = null; // log of the state-changing commands since the last snapshot
+        int syncRecords = 1; // group commit: fsync the log every syncRecords records
+        long syncMillis = 0; // or every syncMillis milliseconds, 0 to fsync by count only
+        int threads = 1; // more than one runs the commands on an Engine
+        String metricsFile = null; // per-command statistics, written at the end
+        long metricsMillis = 0; // and every metricsMillis milliseconds while running, 0 for never
+        for (int i = 2; i < args.length; i++) {
+            try {
+                if (args[i].equals("--restore") && i + 1 < args.length) restoreFrom = args[++i];
+                else if (args[i].equals("--snapshot") && i + 1 < args.length) snapshotTo = args[++i];
+                else if (args[i].equals("--wal") && i + 1 < args.length) walFile = args[++i];
+                else if (args[i].equals("--sync-records") && i + 1 < args.length) syncRecords = Integer.parseInt(args[++i]);
+                else if (args[i].equals("--sync-millis") && i + 1 < args.length) syncMillis = Long.parseLong(args[++i]);
+                else if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+                else if (args[i].equals("--metrics") && i + 1 < args.length) metricsFile = args[++i];
+                else if (args[i].equals("--metrics-millis") && i + 1 < args.length) metricsMillis = Long.parseLong(args[++i]);
+                else if (FeedMode.named(args[i]) != null) User.feedMode = FeedMode.named(args[i]);
+                else {
+                    System.out.println("Error: Unknown or incomplete option " + args[i] + ".");
+                    System.out.println(USAGE);
+                    return;
+                }
+            }
+            catch (NumberFormatException e) {
+                System.out.println("Error: " + args[i - 1] + " needs a number, got " + args[i] + ".");
+                System.out.println(USAGE);
+                return;
+            }
+        }
+        if (threads < 1 || threads > Engine.MAX_SHARDS) {
+            System.out.println("Error: --threads takes 1 to " + Engine.MAX_SHARDS + ".");
+            System.out.println(USAGE);
+            return;
+        }
+        try {
+            WriteAheadLog.Position covered = restoreFrom == null ? null : Snapshot.restore(Path.of(restoreFrom));
+            if (walFile != null) WriteAheadLog.replay(Path.of(walFile), covered);
+        }
+        catch (IOException e) {
+            System.out.println("Error: Could not recover from " + (restoreFrom != null ? restoreFrom : walFile) + ".");
+            e.printStackTrace();
+            return;
+        }
+        Metrics metrics = null;
+        if (metricsFile != null) {
+            metrics = new Metrics();
+            Metrics.active = metrics;
+            TableStats.track();
+        }
+        try (CommandReader reader = new CommandReader(Path.of(inputFileName));
+             OutputSink out = new OutputSink(Path.of(outputFileName));
+             WriteAheadLog wal = walFile == null ? null : new WriteAheadLog(Path.of(walFile), syncRecords, syncMillis);
+             Engine engine = threads == 1 ? null : new Engine(threads, out, wal)) {
+            // dumps taken while running leave out SeenPosts, unless the engine can total them
+            Closeable dumps = metrics == null || metricsMillis == 0 ? null
+                    : metrics.dumpEvery(Path.of(metricsFile), metricsMillis, engine);
+            try {
+                Command command;
+                while((command = reader.nextCommand()) != null) {
+                    if (engine != null) {
+                        engine.submit(command, reader);
+                        continue;
+                    }
+                    String user1 = null,user2,postID = null,content;
+                    int num;
+                    long startNanos = 0, startAllocated = 0;
+                    if (metrics != null) {
+                        startNanos = System.nanoTime();
+                        startAllocated = Metrics.allocatedBytes();
+                    }
+                    switch (command) {
+                        case CREATE_USER:
+                            user1 = reader.nextWord();
+                            if (wal != null) wal.append(command, user1);
+                            Operations.createUser(user1,out);
+                            break;
+                        case CREATE_POST:
+                            user1 = reader.nextWord();
+                            postID = reader.nextWord();
+                            content = reader.nextWord();
+                            if (wal != null) wal.append(command, user1, postID, content);
+                            Operations.createPost(postID,user1,content,out);
+                            break;
+                        case FOLLOW_USER:
+                            user1 = reader.nextWord();
+                            user2 = reader.nextWord();
+                            if (wal != null) wal.append(command, user1, user2);
+                            Operations.followUser(user1,user2,out);
+                            break;
+                        case UNFOLLOW_USER:
+                            user1 = reader.nextWord();
+                            user2 = reader.nextWord();
+                            if (wal != null) wal.append(command, user1, user2);
+                            Operations.unfollowUser(user1,user2,out);
+                            break;
+                        case FOLLOWER_COUNT:
+                            user1 = reader.nextWord();
+                            Operations.followerCount(user1,out);
+                            break;
+                        case FOLLOWING_COUNT:
+                            user1 = reader.nextWord();
+                            Operations.followingCount(user1,out);
+                            break;
+                        case SEE_POST:
+                            user1 = reader.nextWord();
+                            postID = reader.nextWord();
+                            if (wal != null) wal.append(command, user1, postID);
+                            Operations.seePost(user1,postID,out);
+                            break;
+                        case SEE_ALL_POSTS_FROM_USER:
+                            user1 = reader.nextWord(); //viewer
+                            user2 = reader.nextWord(); //viewed
+                            if (wal != null) wal.append(command, user1, user2);
+                            Operations.seeAllPosts(user1,user2,out);
+                            break;
+                        case TOGGLE_LIKE:
+                            user1 = reader.nextWord();
+                            postID = reader.nextWord();
+                            if (wal != null) wal.append(command, user1, postID);
+                            Operations.toggleLike(user1,postID,out);
+                            break;
+                        case GENERATE_FEED:
+                            user1 = reader.nextWord();
+                            num = reader.nextInt();
+                            Operations.generateFeed(user1,num,out);
+                            break;
+                        case SCROLL_THROUGH_FEED:
+                            user1 = reader.nextWord();
+                            num = reader.nextInt();
+                            int[] nums = new int[num];
+                            for (int i = 0; i < num; i++) {
+                                nums[i] = reader.nextInt();
+                            }
+                            if (wal != null) wal.appendScroll(user1, nums);
+                            Operations.scrollThroughFeed(user1,num,nums,out);
+                            break;
+                        case SORT_POSTS:
+                            user1 = reader.nextWord();
+                            Operations.sortPosts(user1,out);
+                            break;
+                        default: // UNKNOWN
+                            break;
+                    }
+                    if (metrics != null && command != Command.UNKNOWN) {
+                        metrics.record(command, user1, postID, startNanos, startAllocated);
+                    }
+                }
+            }
+            finally {
+                if (dumps != null) dumps.close(); // before the engine, which the dumps use
+            }
+        }
+        catch (IOException | UncheckedIOException e) {
+            System.out.println("Error: File not found.");
+            e.printStackTrace();
+        }
+        catch (InterruptedException e) {
+            System.out.println("Error: Interrupted while running commands.");
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (metrics != null) {
+            try {
+                metrics.writeJson(Path.of(metricsFile));
+            }
+            catch (IOException e) {
+                System.out.println("Error: Could not write metrics " + metricsFile + ".");
+                e.printStackTrace();
+            }
+        }
+        if (snapshotTo != null) {
+            try {
+                if (walFile == null) Snapshot.write(Path.of(snapshotTo));
+                else {
+                    try (WriteAheadLog wal = new WriteAheadLog(Path.of(walFile), 0, 0)) {
+                        // recovery skips the records the snapshot holds, should the checkpoint not happen
+                        Snapshot.write(Path.of(snapshotTo), wal.position());
+                        wal.checkpoint();
+                    }
+                }
+            }
+            catch (IOException e) {
+                System.out.println("Error: Could not write snapshot " + snapshotTo + ".");
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
\ No newline at end of file
@@ -1,3 +1,5 @@
+package instaclone;
+
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
 
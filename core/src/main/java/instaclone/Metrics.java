@@ -0,0 +1,240 @@
+package instaclone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-command instrumentation: for every command type a count, a latency histogram and the bytes
+ * allocated by the thread running it, plus the users whose feeds cost the most time to build and
+ * the posts whose likes were toggled most often, and the TableStats of the registries. Dumped
+ * as JSON at the end of a run and, while it runs, on request or at a fixed interval if asked for.
+ * Collection is off unless active is set, and then every command costs the runner one null check;
+ * when on, it costs two clock reads, two allocation counter reads and a few atomic additions.
+ * All of it is safe to record from several threads, such as the Engine's shards.
+ */
+public class Metrics {
+    /** The metrics commands are recorded in, or null to record nothing. */
+    public static volatile Metrics active;
+
+    /** Entries in each top list. */
+    private static final int TOP = 10;
+    private static final Command[] COMMANDS = Command.values();
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[COMMANDS.length];
+    private final LongAdder[] allocated = new LongAdder[COMMANDS.length];
+    // nanoseconds of generate_feed and scroll_through_feed by user ID
+    private final StripedHashMap<String, LongAdder> feedNanos = new StripedHashMap<>();
+    // toggle_like commands by post ID
+    private final StripedHashMap<String, LongAdder> likeToggles = new StripedHashMap<>();
+
+    private static final class Counted {
+        final String ID;
+        final long value;
+
+        Counted(String ID, long value) {
+            this.ID = ID;
+            this.value = value;
+        }
+    }
+
+    public Metrics() {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            allocated[i] = new LongAdder();
+        }
+    }
+
+    // the HotSpot bean that counts allocations, or null on a JVM without one
+    private static com.sun.management.ThreadMXBean threads() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) return null;
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+
+    /**
+     * @return Bytes allocated so far by the calling thread, or 0 if the JVM cannot tell.
+     */
+    public static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records one command that the calling thread ran.
+     * @param user The acting user.
+     * @param post The post of toggle_like, otherwise unused and may be null.
+     * @param startNanos System.nanoTime() before the command.
+     * @param startAllocated allocatedBytes() before the command.
+     */
+    public void record(Command command, String user, String post, long startNanos, long startAllocated) {
+        long nanos = System.nanoTime() - startNanos;
+        latencies[command.ordinal()].record(nanos);
+        allocated[command.ordinal()].add(allocatedBytes() - startAllocated);
+        if (command == Command.GENERATE_FEED || command == Command.SCROLL_THROUGH_FEED) {
+            counter(feedNanos, user).add(nanos);
+        } else if (command == Command.TOGGLE_LIKE) {
+            counter(likeToggles, post).increment();
+        }
+    }
+
+    private static LongAdder counter(StripedHashMap<String, LongAdder> counters, String ID) {
+        LongAdder counter = counters.getValue(ID); // read lock only, once the ID has been seen
+        return counter != null ? counter : counters.computeIfAbsent(ID, id -> new LongAdder());
+    }
+
+    /**
+     * Writes what has been recorded so far as JSON, with the totals of the users' SeenPosts
+     * bitmaps, which it reads itself. Call it only while no command runs.
+     */
+    public void writeJson(Writer out) throws IOException {
+        writeJson(out, TableStats.scanSeenPosts());
+    }
+
+    /**
+     * Writes what has been recorded so far as JSON. Commands recorded meanwhile may be partly
+     * included.
+     * @param seenPosts The totals of TableStats.scanSeenPosts, or null to leave them out.
+     */
+    public void writeJson(Writer out, TableStats.Bitmaps seenPosts) throws IOException {
+        out.write("{\n  \"commands\": {");
+        String separator = "\n";
+        for (Command command : COMMANDS) {
+            LatencyHistogram latency = latencies[command.ordinal()];
+            long count = latency.count();
+            if (count == 0) continue;
+            long bytes = allocated[command.ordinal()].sum();
+            out.write(separator + "    \"" + command.name().toLowerCase() + "\": {\"count\": " + count
+                    + ", \"meanNanos\": " + latency.total() / count
+                    + ", \"p50Nanos\": " + latency.percentile(0.5)
+                    + ", \"p99Nanos\": " + latency.percentile(0.99)
+                    + ", \"p999Nanos\": " + latency.percentile(0.999)
+                    + ", \"maxNanos\": " + latency.max()
+                    + ", \"allocatedBytes\": " + bytes
+                    + ", \"allocatedBytesPerCommand\": " + bytes / count + "}");
+            separator = ",\n";
+        }
+        out.write("\n  },\n  \"topUsersByFeedNanos\": ");
+        writeTop(out, feedNanos, "nanos");
+        out.write(",\n  \"topPostsByLikeToggles\": ");
+        writeTop(out, likeToggles, "toggles");
+        out.write(",\n  \"collections\": ");
+        TableStats.writeJson(out, "  ", seenPosts);
+        out.write("\n}\n");
+    }
+
+    private static void writeTop(Writer out, StripedHashMap<String, LongAdder> counters, String field) throws IOException {
+        // the TOP largest, smallest first
+        PriorityQueue<Counted> top = new PriorityQueue<>((a, b) -> Long.compare(a.value, b.value));
+        for (String ID : counters) {
+            long value = counters.getValue(ID).sum();
+            if (top.size() < TOP) top.add(new Counted(ID, value));
+            else if (value > top.peek().value) {
+                top.poll();
+                top.add(new Counted(ID, value));
+            }
+        }
+        ArrayList<Counted> largestFirst = new ArrayList<>();
+        while (!top.isEmpty()) largestFirst.add(0, top.poll());
+        out.write("[");
+        String separator = "\n";
+        for (Counted entry : largestFirst) {
+            out.write(separator + "    {\"id\": " + quote(entry.ID) + ", \"" + field + "\": " + entry.value + "}");
+            separator = ",\n";
+        }
+        out.write(largestFirst.isEmpty() ? "]" : "\n  ]");
+    }
+
+    // a JSON string literal of s
+    private static String quote(String s) {
+        StringBuilder quoted = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Writes the JSON to a temporary file beside the given one and moves it into place, so a
+     * reader of the file never sees a dump cut short. Call it only while no command runs.
+     */
+    public void writeJson(Path file) throws IOException {
+        writeJson(file, TableStats.scanSeenPosts());
+    }
+    private synchronized void writeJson(Path file, TableStats.Bitmaps seenPosts) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp)) {
+                writeJson(out, seenPosts);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the JSON to the file while commands run, once those submitted so far are done.
+     * @param engine The engine running the commands, through which the users' SeenPosts are
+     *               totalled with its shards held, or null to leave them out of the dump.
+     */
+    public void dump(Path file, Engine engine) throws IOException, InterruptedException {
+        TableStats.Bitmaps[] seenPosts = new TableStats.Bitmaps[1];
+        if (engine != null) {
+            try {
+                engine.runAlone(() -> seenPosts[0] = TableStats.scanSeenPosts()).get();
+            } catch (ExecutionException e) {
+                throw new IOException("Could not total the SeenPosts", e.getCause());
+            }
+        }
+        writeJson(file, seenPosts[0]);
+    }
+
+    /**
+     * Writes the JSON to the file every given number of milliseconds from a daemon thread, as
+     * dump does, so a long run can be watched while it goes on. A failed write is reported and
+     * tried again at the next interval.
+     * @param engine The engine running the commands, or null to leave SeenPosts out of these dumps.
+     * @return Stops the dumps; close it before the engine.
+     */
+    public Closeable dumpEvery(Path file, long millis, Engine engine) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                dump(file, engine);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // stopped
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        return () -> {
+            timer.shutdownNow();
+            try {
+                timer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+}
@@ -0,0 +1,255 @@
+package instaclone;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * This class implements a hash set with linear probing over parallel key/hash arrays.
+ * Like HashMap it can resize incrementally, see HashMap for the details.
+ */
+public class MyHashSet<T> implements Iterable<T>{
+    private int tableSize;
+    private int numElements;
+    private Object[] keys;
+    private int[] hashes; // cached hashCode of the key in each slot, 0 for an empty slot
+    private int resizeAt; // numElements that triggers the next rehash
+
+    private final boolean incremental;
+    // previous table while an incremental resize is in progress, null otherwise
+    private Object[] oldKeys;
+    private int[] oldHashes;
+    private int migrated; // old slots below this index have been moved to the new table
+    private static final int MIGRATE_STEP = 8;
+    private static final Object MOVED = new Object();
+
+    public MyHashSet(int tableSize, boolean incremental) {
+        this.tableSize = Hashing.capacityFor(tableSize);
+        this.incremental = incremental;
+        resizeAt = (int) (this.tableSize * Hashing.MAX_LOAD);
+        keys = new Object[this.tableSize];
+        hashes = new int[this.tableSize];
+    }
+    public MyHashSet(int tableSize) {
+        this(tableSize, false);
+    }
+    public MyHashSet() {
+        this(101);
+    }
+    private void rehash() {
+        if (tableSize == Hashing.MAX_CAPACITY) throw new IllegalStateException("MyHashSet cannot grow past " + numElements + " elements");
+        if (oldKeys != null) migrate(oldKeys.length);
+        oldKeys = keys;
+        oldHashes = hashes;
+        migrated = 0;
+        tableSize <<= 1;
+        resizeAt = (int) (tableSize * Hashing.MAX_LOAD);
+        keys = new Object[tableSize];
+        hashes = new int[tableSize];
+        if (!incremental) migrate(oldKeys.length);
+    }
+    private void migrateStep() {
+        if (oldKeys != null) migrate(MIGRATE_STEP);
+    }
+    // moves up to count old slots into the new table, dropping the old table once all are moved
+    private void migrate(int count) {
+        int end = Math.min(migrated + count, oldKeys.length);
+        for (int j = migrated; j < end; j++) {
+            Object key = oldKeys[j];
+            if (key == null || key == MOVED) continue;
+            int i = Hashing.indexFor(oldHashes[j], tableSize);
+            while (hashes[i] != 0) {
+                if (++i == tableSize) i = 0;
+            }
+            keys[i] = key;
+            hashes[i] = oldHashes[j];
+            oldKeys[j] = MOVED;
+        }
+        migrated = end;
+        if (migrated == oldKeys.length) {
+            oldKeys = null;
+            oldHashes = null;
+        }
+    }
+    // 0 marks an empty slot, see HashMap.hashOf
+    private static int hashOf(Object key) {
+        int h = key.hashCode();
+        return h == 0 ? 1 : h;
+    }
+    // slot holding the key, or the empty slot that ends its probe sequence
+    private int findSlot(Object key, int h) {
+        int i = Hashing.indexFor(h, tableSize);
+        while (hashes[i] != 0) {
+            if (hashes[i] == h && keys[i].equals(key)) return i;
+            if (++i == tableSize) i = 0;
+        }
+        return i;
+    }
+    // slot holding the key in the old table, or -1
+    private int findOldSlot(Object key, int h) {
+        if (oldKeys == null) return -1;
+        int size = oldKeys.length;
+        int i = Hashing.indexFor(h, size);
+        while (oldHashes[i] != 0) {
+            if (oldHashes[i] == h && oldKeys[i] != MOVED && oldKeys[i].equals(key)) return i;
+            if (++i == size) i = 0;
+        }
+        return -1;
+    }
+    public boolean contains(T key) {
+        int h = hashOf(key);
+        return hashes[findSlot(key, h)] != 0 || findOldSlot(key, h) >= 0;
+    }
+    public boolean add(T key) {
+        return putIfAbsent(key) == null;
+    }
+    private void insertAt(int i, T key, int h) {
+        keys[i] = key;
+        hashes[i] = h;
+        numElements++;
+        if (numElements >= resizeAt) {
+            rehash();
+        }
+    }
+    /**
+     * Adds the key if no equal element is present.
+     * @return the element already in the set, or null if the key was added
+     */
+    @SuppressWarnings("unchecked")
+    public T putIfAbsent(T key) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (T) keys[i];
+        int j = findOldSlot(key, h);
+        if (j >= 0) return (T) oldKeys[j];
+        insertAt(i, key, h);
+        return null;
+    }
+    /**
+     * Returns the element equal to the key, adding the one built by the function if absent.
+     * The function must not modify this set.
+     */
+    @SuppressWarnings("unchecked")
+    public T computeIfAbsent(T key, Function<? super T, ? extends T> create) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (T) keys[i];
+        int j = findOldSlot(key, h);
+        if (j >= 0) return (T) oldKeys[j];
+        T element = create.apply(key);
+        insertAt(i, element, h);
+        return element;
+    }
+    @SuppressWarnings("unchecked")
+    public T getOrDefault(T key, T defaultValue) {
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) return (T) keys[i];
+        int j = findOldSlot(key, h);
+        return j >= 0 ? (T) oldKeys[j] : defaultValue;
+    }
+   public boolean remove(T key) {
+        return removeAndGet(key) != null;
+    }
+    /**
+     * Removes the element equal to the key.
+     * @return the removed element, or null if it was not present
+     */
+    @SuppressWarnings("unchecked")
+    public T removeAndGet(T key) {
+        migrateStep();
+        int h = hashOf(key);
+        int i = findSlot(key, h);
+        if (hashes[i] != 0) {
+            T element = (T) keys[i];
+            deleteSlot(i);
+            numElements--;
+            return element;
+        }
+        int j = findOldSlot(key, h);
+        if (j < 0) return null;
+        T element = (T) oldKeys[j];
+        oldKeys[j] = MOVED; // no backward shift in the old table, see HashMap.deleteOldSlot
+        numElements--;
+        return element;
+    }
+    // backward-shift deletion, see HashMap.deleteSlot
+    private void deleteSlot(int hole) {
+        int i = hole;
+        while (true) {
+            if (++i == tableSize) i = 0;
+            if (hashes[i] == 0) break;
+            int home = Hashing.indexFor(hashes[i], tableSize);
+            if (Hashing.canShiftBack(home, hole, i)) {
+                keys[hole] = keys[i];
+                hashes[hole] = hashes[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        hashes[hole] = 0;
+    }
+    public void empty() {
+        keys = new Object[tableSize];
+        hashes = new int[tableSize];
+        oldKeys = null;
+        oldHashes = null;
+        numElements = 0;
+   }
+
+    public T get(T key) {
+        return getOrDefault(key, null);
+    }
+    public int getTableSize() {
+        return tableSize;
+    }
+    public int getNumElements() {
+        return numElements;
+    }
+
+    public Iterator<T> iterator() {
+        return new MyHashSetIterator();
+    }
+    // walks the new table, then the old one while a resize is in progress
+    private class MyHashSetIterator implements Iterator<T> {
+        private Object[] currentKeys = keys;
+        private int currentSlot = 0; // Current slot in the hash table
+
+        public MyHashSetIterator() {
+            // Find the first occupied slot
+            moveToNextOccupiedSlot();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return currentSlot < currentKeys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T currentKey = (T) currentKeys[currentSlot++];
+            moveToNextOccupiedSlot();
+            return currentKey;
+        }
+
+        // Move to the next occupied slot
+        private void moveToNextOccupiedSlot() {
+            while (true) {
+                while (currentSlot < currentKeys.length
+                        && (currentKeys[currentSlot] == null || currentKeys[currentSlot] == MOVED)) {
+                    currentSlot++;
+                }
+                if (currentSlot < currentKeys.length || currentKeys != keys || oldKeys == null) return;
+                currentKeys = oldKeys;
+                currentSlot = 0;
+            }
+        }
+    }
+
+}
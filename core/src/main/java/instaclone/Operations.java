@@ -0,0 +1,277 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+/**
+ * Class to perform operations on the social media platform.
+ * Each operation writes its result lines to the given sink.
+ */
+public class Operations {
+    /**
+     * Creates a new user with the given ID.
+     * @param ID The ID of the user to be created.
+     * @param out The sink the result is written to.
+     */
+    public static void createUser(String ID, OutputSink out) {
+        if (User.createUser(ID)) {
+            out.append("Created user with Id ").append(ID).append(".").newLine();
+        } else {
+            out.append("Some error occurred in create_user.").newLine();
+        }
+    }
+
+    /**
+     * Follows the user with ID2 from the user with ID1.
+     * @param ID1 The ID of the user who will follow.
+     * @param ID2 The ID of the user who will be followed.
+     * @param out The sink the result is written to.
+     */
+    public static void followUser(String ID1, String ID2, OutputSink out) {
+        User user1 = User.getUser(ID1);
+        User user2 = User.getUser(ID2);
+        if (user1 != null && user2 != null) {
+            if (user1.followUser(user2)) {
+                out.append(ID1).append(" followed ").append(ID2).append(".").newLine();
+                return;
+            }
+        }
+        out.append("Some error occurred in follow_user.").newLine();
+    }
+
+    /**
+        * Unfollows the user with ID2 from the user with ID1.
+        * @param ID1 The ID of the user who will unfollow.
+        * @param ID2 The ID of the user who will be unfollowed.
+        * @param out The sink the result is written to.
+        */
+    public static void unfollowUser(String ID1 , String ID2, OutputSink out) {
+        User user1 = User.getUser(ID1);
+        User user2 = User.getUser(ID2);
+        if (user1 != null && user2 != null) {
+            if (user1.unfollowUser(user2)) {
+                out.append(ID1).append(" unfollowed ").append(ID2).append(".").newLine();
+                return;
+            }
+        }
+        out.append("Some error occurred in unfollow_user.").newLine();
+    }
+
+    /**
+     * Reports how many users follow the user with ID.
+     * @param ID The ID of the user.
+     * @param out The sink the result is written to.
+     */
+    public static void followerCount(String ID, OutputSink out) {
+        User user = User.getUser(ID);
+        if (user != null) {
+            out.append(ID).append(" has ").append(user.followerCount()).append(" followers.").newLine();
+            return;
+        }
+        out.append("Some error occurred in follower_count.").newLine();
+    }
+
+    /**
+     * Reports how many users the user with ID follows.
+     * @param ID The ID of the user.
+     * @param out The sink the result is written to.
+     */
+    public static void followingCount(String ID, OutputSink out) {
+        User user = User.getUser(ID);
+        if (user != null) {
+            out.append(ID).append(" follows ").append(user.followingCount()).append(" users.").newLine();
+            return;
+        }
+        out.append("Some error occurred in following_count.").newLine();
+    }
+
+    /**
+     * Creates a new post with the given ID, author ID, and content.
+     * @param ID The ID of the post to be created.
+     * @param authorID The ID of the author of the post.
+     * @param content The content of the post.
+     * @param out The sink the result is written to.
+     */
+    public static void createPost(String ID, String authorID, String content, OutputSink out) {
+        User author = User.getUser(authorID);
+        if (author != null) {
+            if (Post.createPost(ID, author, content)) {
+                out.append(authorID).append(" created a post with Id ").append(ID).append(".").newLine();
+                return;
+            }
+        }
+        out.append("Some error occurred in create_post.").newLine();
+    }
+
+    /**
+     * Marks the post with postID as seen by the user with userID.
+     * @param userID The ID of the user who will see the post.
+     * @param postID The ID of the post to be seen.
+     * @param out The sink the result is written to.
+     */
+    public static void seePost(String userID, String postID, OutputSink out) {
+        seePost(User.getUser(userID), userID, postID, out);
+    }
+    /**
+     * Same as seePost(userID, postID, out) for a user already looked up, as a batch of one
+     * user's commands does once for all of them.
+     * @param user The user with userID, or null if there is none.
+     */
+    static void seePost(User user, String userID, String postID, OutputSink out) {
+        if (user != null) {
+            Post post = Post.getPost(postID);
+            if (post != null) {
+                user.seePost(post);
+                out.append(userID).append(" saw ").append(postID).append(".").newLine();
+                return;
+            }
+        }
+        out.append("Some error occurred in see_post.").newLine();
+    }
+
+    /**
+     * Marks all posts of the user with viewedID as seen by the user with viewerID.
+     * @param viewerID The ID of the user who will see all posts.
+     * @param viewedID The ID of the user whose posts will be seen.
+     * @param out The sink the result is written to.
+     */
+    public static void seeAllPosts(String viewerID, String viewedID, OutputSink out) {
+        User viewer = User.getUser(viewerID);
+        User viewed = User.getUser(viewedID);
+        if(viewer != null && viewed != null) {
+            viewer.seeAllPosts(viewed);
+            out.append(viewerID).append(" saw all posts of ").append(viewedID).append(".").newLine();
+            return;
+        }
+        out.append("Some error occurred in see_all_posts_from_user.").newLine();
+    }
+
+    /**
+     * Toggles the like status of the post with postID by the user with userID.
+     * @param userID The ID of the user who will toggle the like status.
+     * @param postID The ID of the post whose like status will be toggled.
+     * @param out The sink the result is written to.
+     */
+    public static void toggleLike(String userID, String postID, OutputSink out) {
+        toggleLike(User.getUser(userID), userID, postID, out);
+    }
+    /**
+     * Same as toggleLike(userID, postID, out) for a user already looked up.
+     * @param user The user with userID, or null if there is none.
+     */
+    static void toggleLike(User user, String userID, String postID, OutputSink out) {
+        Post post = Post.getPost(postID);
+        if (user != null && post != null) {
+            reportLike(userID, postID, post.like(user), out);
+            return;
+        }
+        out.append("Some error occurred in toggle_like.").newLine();
+    }
+    /**
+     * Runs the first of two toggle_likes of the same post by the same user that cancel out:
+     * the user sees the post and the first output is written, but the like is not flipped,
+     * so neither the count nor the author's ranking moves.
+     * @param user The user with userID, or null if there is none.
+     * @return Whether the first toggle_like reports a like, or null if it failed, as the second will.
+     */
+    static Boolean toggleLikeCancelled(User user, String userID, String postID, OutputSink out) {
+        Post post = Post.getPost(postID);
+        if (user != null && post != null) {
+            user.seePost(post);
+            boolean liked = !user.likes(post);
+            reportLike(userID, postID, liked, out);
+            return liked;
+        }
+        out.append("Some error occurred in toggle_like.").newLine();
+        return null;
+    }
+    /**
+     * Writes the output of a toggle_like that left the user liking the post or not.
+     */
+    static void reportLike(String userID, String postID, boolean liked, OutputSink out) {
+        if (liked)
+            out.append(userID).append(" liked ").append(postID).append(".").newLine();
+        else
+            out.append(userID).append(" unliked ").append(postID).append(".").newLine();
+    }
+
+    /**
+     * Generates a feed of posts for the user with userID.
+     * @param userID The ID of the user for whom the feed will be generated.
+     * @param num The number of posts to be generated.
+     * @param out The sink the result is written to.
+     */
+    public static void generateFeed(String userID, int num, OutputSink out) {
+        User user = User.getUser(userID);
+        if (user != null) {
+            ArrayList<Post> feed = user.generateFeed(num);
+            out.append("Feed for ").append(userID).append(":").newLine();
+            for (int i = 0; i < feed.size(); i++) {
+                Post post = feed.get(i);
+                out.append("Post ID: ").append(post.ID).append(", Author: ")
+                        .append(post.author.ID).append(", Likes: ").append(post.likes).newLine();
+            }
+            if (feed.size() < num)
+                out.append("No more posts available for ").append(userID).append(".").newLine();
+            return;
+        }
+        out.append("Some error occurred in generate_feed.").newLine();
+    }
+
+    /**
+     * Simulates a user scrolling through the feed.
+     * @param userID The ID of the user who will scroll through the feed.
+     * @param num The number of posts to be scrolled through.
+     * @param nums An array of integers indicating the action to be taken for each post.
+     * @param out The sink the result is written to.
+     */
+    public static void scrollThroughFeed(String userID, int num, int[] nums, OutputSink out) {
+        User user = User.getUser(userID);
+        if (user != null) {
+            out.append(userID).append(" is scrolling through feed:").newLine();
+            // PULL merges as the user scrolls, so stopping early costs nothing; the other modes
+            // read the top of the feed cache
+            Iterator<Post> feed = User.feedMode == FeedMode.PULL
+                    ? user.feedCursor(FeedRanking.SNAPSHOT) : user.generateFeed(num).iterator();
+            int i = 0;
+            for (; i < num && feed.hasNext(); i++) {
+                Post post = feed.next();
+                if (nums[i] == 0) {// only sees the post
+                    user.seePost(post);
+                    out.append(userID).append(" saw ").append(post.ID).append(" while scrolling.").newLine();
+                }
+                if (nums [i] == 1) { // likes the post
+                    if (post.like(user)) {
+                        out.append(userID).append(" saw ").append(post.ID).append(" while scrolling and clicked the like button.").newLine();
+                    }
+                }
+            }
+            if (i < num) {
+                out.append("No more posts in feed.").newLine();
+            }
+            return;
+        }
+        out.append("Some error occurred in scroll_through_feed.").newLine();
+    }
+
+    /**
+     * Sorts the posts of the user with userID.
+     * @param userID The ID of the user whose posts will be sorted.
+     * @param out The sink the result is written to.
+     */
+    public static void sortPosts(String userID, OutputSink out) {
+        User user = User.getUser(userID);
+        if (user != null) {
+            if (user.posts == null) {
+                out.append("No posts from ").append(userID).append(".").newLine();
+            }
+            else {
+                out.append("Sorting ").append(userID).append("'s posts:").newLine();
+                for (Post post : user.sortPosts()) {
+                    out.append(post.ID).append(", Likes: ").append(post.likes).newLine();
+                }
+            }
+            return;
+        }
+        out.append("Some error occurred in sort_posts.").newLine();
+    }
+}
@@ -0,0 +1,176 @@
+package instaclone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destination of command output. Text is encoded as UTF-8 straight into one large reusable
+ * buffer, which is written to the channel whenever it fills up, so producing a line allocates
+ * nothing: no StringBuilder, String or list per line.
+ * Write errors surface as UncheckedIOException, as the Operations methods writing here have no
+ * checked exceptions.
+ */
+public class OutputSink implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private final byte[] digits = new byte[11];
+
+    public OutputSink(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+    public OutputSink(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * A sink that drops everything written to it, for commands whose output was already given,
+     * such as those replayed from the write-ahead log.
+     */
+    public static OutputSink discarding() {
+        return new OutputSink(new WritableByteChannel() {
+            private boolean open = true;
+            public int write(ByteBuffer src) {
+                int n = src.remaining();
+                src.position(src.limit());
+                return n;
+            }
+            public boolean isOpen() {
+                return open;
+            }
+            public void close() {
+                open = false;
+            }
+        });
+    }
+
+    // makes room for n bytes
+    private void ensure(int n) {
+        if (bytes.length - position < n) flush();
+    }
+
+    public OutputSink append(String s) {
+        int length = s.length();
+        if (length * 3 > bytes.length) { // too long to reserve for at once
+            for (int i = 0; i < length; i++) {
+                ensure(4);
+                i = encode(s, i);
+            }
+            return this;
+        }
+        ensure(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) bytes[position++] = (byte) c;
+            else i = encode(s, i);
+        }
+        return this;
+    }
+
+    // writes the character at i as UTF-8 and returns the index of its last char
+    private int encode(String s, int i) {
+        char c = s.charAt(i);
+        if (c < 0x80) {
+            bytes[position++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[position++] = (byte) (0xC0 | c >> 6);
+            bytes[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | cp >> 18);
+                bytes[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                bytes[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | cp & 0x3F);
+            } else {
+                bytes[position++] = '?'; // unpaired surrogate, as String.getBytes replaces it
+            }
+        } else {
+            bytes[position++] = (byte) (0xE0 | c >> 12);
+            bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return i;
+    }
+
+    /**
+     * Appends bytes that are already encoded, such as the captured output of another sink.
+     */
+    public OutputSink append(byte[] encoded) {
+        int from = 0;
+        while (from < encoded.length) {
+            if (position == bytes.length) flush();
+            int n = Math.min(encoded.length - from, bytes.length - position);
+            System.arraycopy(encoded, from, bytes, position, n);
+            position += n;
+            from += n;
+        }
+        return this;
+    }
+
+    public OutputSink append(char c) {
+        ensure(3);
+        if (c < 0x80) bytes[position++] = (byte) c;
+        else encode(String.valueOf(c), 0);
+        return this;
+    }
+
+    public OutputSink append(int value) {
+        ensure(digits.length);
+        long v = value; // Integer.MIN_VALUE has no positive int
+        if (v < 0) {
+            bytes[position++] = '-';
+            v = -v;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (n > 0) bytes[position++] = digits[--n];
+        return this;
+    }
+
+    /**
+     * Ends the current line with the platform line separator, like BufferedWriter.newLine.
+     */
+    public OutputSink newLine() {
+        ensure(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) bytes[position++] = b;
+        return this;
+    }
+
+    /**
+     * Writes out everything appended so far.
+     */
+    public void flush() {
+        buffer.clear().limit(position);
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
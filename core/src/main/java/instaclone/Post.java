@@ -0,0 +1,210 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class to represent a post on the social media platform.
+ */
+public class Post implements Comparable<Post> {
+    /**
+     * The unique ID of the post.
+     */
+    public final String ID;
+    /**
+     * Dense index of the post, assigned when it is created.
+     */
+    public final int index;
+    /**
+     * Table of all posts by index.
+     */
+    public static final IdTable<Post> posts = new IdTable<>();
+    /**
+     * A global HashMap to store all the posts created IDs as key.
+     * It is safe for concurrent use and resizes incrementally, one segment at a time.
+     */
+    private static StripedHashMap<String,Post> allPosts = new StripedHashMap<>(101, true);
+    /**
+     * The author of the post.
+     */
+    public final User author;
+    /**
+     * The content of the post.
+     */
+    private final String content;
+    /**
+     * Running like count. Which users like the post is kept by the users themselves, see
+     * User.likedPosts, so concurrent likes of a hot post only meet here, in a counter striped
+     * over cells.
+     */
+    private final LongAdder likeCount = new LongAdder();
+    /**
+     * The number of likes on the post as of its last move in its author's ranking. It changes
+     * only under the author's rankingLock while the post is out of the tree, see User.rerank, so
+     * the tree never holds it under a stale count.
+     */
+    public volatile int likes = 0;
+
+    /**
+     * Constructor to create a post with the given index. Registering it in posts under that
+     * index and in the global map is up to the caller, see createPost.
+     * @param ID The ID of the post.
+     * @param author The author of the post.
+     * @param content The content of the post.
+     * @param index The index posts will give it.
+     */
+    Post(String ID, User author, String content, int index) {
+        this.ID = ID;
+        this.author = author;
+        this.content = content;
+        this.index = index;
+    }
+    @Override
+    public int compareTo(Post other) {
+        if (this.likes != other.likes) {
+            return Integer.compare(this.likes,other.likes); // Higher likes first
+        }
+        // If likes are equal, compare by ID (lexicographical order)
+        return this.ID.compareTo(other.ID);
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Post post = (Post) obj;
+        return ID.equals(post.ID);
+    }
+    @Override
+    public int hashCode() {
+        return ID.hashCode();
+    }
+
+    /**
+     * Method to like a post.
+     * @param user The user who is liking the post.
+     * @return True if the post was liked, false if the post was unliked.
+     */
+    public boolean like(User user) {
+        user.seePost(this);
+        // feed caches are ordered by likes, so take the post out before they change
+        boolean fanOut = author.followers != null && !author.celebrity && FeedCache.inUse();
+        if (fanOut) {
+            author.followers.forEach(i -> {
+                FeedCache cache = User.users.get(i).feedCache;
+                if (cache != null) cache.remove(this);
+            });
+        }
+        boolean liked = user.toggleLike(this);
+        if (liked) likeCount.increment();
+        else likeCount.decrement();
+        author.rerank(this);
+        if (fanOut) {
+            author.followers.forEach(i -> {
+                User follower = User.users.get(i);
+                if (follower.feedCache != null && !follower.hasSeen(this)) follower.feedCache.offer(this);
+            });
+        }
+        return liked;
+    }
+    /**
+     * Method to get the content of the post.
+     * @return The content of the post.
+     */
+    public static boolean createPost(String ID, User author, String content) {
+        Post[] created = new Post[1];
+        // only a new post takes an index
+        allPosts.computeIfAbsent(ID, id -> created[0] = posts.add(index -> new Post(id, author, content, index)));
+        Post p = created[0];
+        if (p == null) return false;
+        author.rankingLock.lock();
+        try {
+            if (author.posts == null) {
+                author.posts = new ArrayList<>();
+                author.rankedPosts = new AvlTree<>();
+            }
+            author.posts.add(p);
+            author.rankedPosts.insert(p);
+            author.rankVersion++;
+        } finally {
+            author.rankingLock.unlock();
+        }
+        if (author.followers != null && !author.celebrity && FeedCache.inUse()) {
+            author.followers.forEach(i -> {
+                FeedCache cache = User.users.get(i).feedCache;
+                if (cache != null) cache.offer(p);
+            });
+        }
+        return true;
+    }
+    /**
+     * Sizes the global post map for the given number of posts, before restoring them.
+     */
+    static void reserve(int count) {
+        if (allPosts.size() == 0) allPosts = new StripedHashMap<>(2 * count + 2, true);
+    }
+    /**
+     * Recreates a post read from a snapshot and adds it to its author's posts, but not yet to
+     * their ranking, see restoreLikes. Unlike createPost it does not check for an existing ID or
+     * fan out to feed caches.
+     */
+    static Post restore(String ID, User author, String content) {
+        Post p = posts.add(index -> new Post(ID, author, content, index));
+        allPosts.put(ID, p);
+        if (author.posts == null) {
+            author.posts = new ArrayList<>();
+            author.rankedPosts = new AvlTree<>();
+        }
+        author.posts.add(p);
+        return p;
+    }
+    /**
+     * Sets the like count of a restored post, once its likers are known, and ranks it.
+     */
+    void restoreLikes(int count) {
+        likeCount.add(count);
+        author.rankingLock.lock();
+        try {
+            likes = count;
+            author.rankedPosts.insert(this);
+            author.rankVersion++;
+        } finally {
+            author.rankingLock.unlock();
+        }
+    }
+    /**
+     * @return The current like count, which may be ahead of likes while a like waits to rerank the post.
+     */
+    int likeCount() {
+        return likeCount.intValue();
+    }
+    /**
+     * @return The content of the post.
+     */
+    String getContent() {
+        return content;
+    }
+    /**
+     * Method to get the content of the post.
+     * @return The content of the post.
+     */
+    public static Post getPost(String ID) {
+        return allPosts.getValue(ID);
+    }
+
+    /**
+     * The registry of posts by ID, for TableStats.
+     */
+    static StripedHashMap<String,Post> allPosts() {
+        return allPosts;
+    }
+
+    /**
+     * Method to check if a post exists.
+     * @param ID The ID of the post.
+     * @return True if the post exists, false otherwise.
+     */
+    public static boolean isPost(String ID) {
+        return allPosts.contains(ID);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package instaclone;
+
+/**
+ * Puts the outputs of commands that finish out of order back into input order. Each command
+ * takes the next sequence number when it is submitted; workers deposit its output under that
+ * number and the submitting thread takes outputs back in sequence. The buffer holds a fixed
+ * window of sequence numbers, so the submitter must take the oldest output before running
+ * more than capacity commands ahead of it.
+ */
+public class ReorderBuffer {
+    private final byte[][] slots;
+    private final int mask;
+    private long next; // sequence number of the next output to take
+
+    /**
+     * @param capacity Most commands in flight, rounded up to a power of two.
+     */
+    public ReorderBuffer(int capacity) {
+        slots = new byte[Hashing.capacityFor(capacity)][];
+        mask = slots.length - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Deposits the output of command seq, which must lie within capacity of the next one to take.
+     */
+    public synchronized void put(long seq, byte[] output) {
+        slots[(int) seq & mask] = output;
+        if (seq == next) notifyAll();
+    }
+
+    /**
+     * @return The next output in sequence if it is ready, otherwise null.
+     */
+    public synchronized byte[] poll() {
+        int i = (int) next & mask;
+        byte[] output = slots[i];
+        if (output != null) {
+            slots[i] = null;
+            next++;
+        }
+        return output;
+    }
+
+    /**
+     * Waits for the next output in sequence and takes it.
+     */
+    public synchronized byte[] take() throws InterruptedException {
+        int i = (int) next & mask;
+        while (slots[i] == null) wait();
+        byte[] output = slots[i];
+        slots[i] = null;
+        next++;
+        return output;
+    }
+
+    /**
+     * @return The sequence number of the next output to take.
+     */
+    public synchronized long next() {
+        return next;
+    }
+}
@@ -0,0 +1,66 @@
+package instaclone;
+
+import java.io.IOException;
+
+/**
+ * One command with its arguments, as read from an input file or a client connection.
+ * The first word is always the acting user.
+ */
+public class Request {
+    public final Command command;
+    public final String[] words;
+    /** The count of generate_feed and scroll_through_feed, 0 for other commands. */
+    public final int num;
+    /** The actions of scroll_through_feed, null for other commands. */
+    public final int[] nums;
+
+    public Request(Command command, String[] words, int num, int[] nums) {
+        this.command = command;
+        this.words = words;
+        this.num = num;
+        this.nums = nums;
+    }
+
+    /**
+     * Reads the arguments of the command from the reader.
+     */
+    public static Request read(Command command, CommandReader reader) throws IOException {
+        String[] words = new String[command.words];
+        for (int i = 0; i < words.length; i++) words[i] = reader.nextWord();
+        int num = 0;
+        int[] nums = null;
+        if (command == Command.GENERATE_FEED || command == Command.SCROLL_THROUGH_FEED) num = reader.nextInt();
+        if (command == Command.SCROLL_THROUGH_FEED) {
+            nums = new int[num];
+            for (int i = 0; i < num; i++) nums[i] = reader.nextInt();
+        }
+        return new Request(command, words, num, nums);
+    }
+
+    /**
+     * Parses a command line, split into words as CommandReader splits the lines of an input
+     * file: on every single space, so a doubled space makes an empty word, a leading one an
+     * unknown command, and tabs are part of the word they are in.
+     * @return The request, or null for an unknown command.
+     * @throws IllegalArgumentException If arguments are missing or a number is not one.
+     */
+    public static Request parse(String line) {
+        String[] tokens = line.split(" ", -1);
+        Command command = Command.named(tokens[0]);
+        if (command == Command.UNKNOWN) return null;
+        int counted = command == Command.GENERATE_FEED || command == Command.SCROLL_THROUGH_FEED ? 1 : 0;
+        if (tokens.length < 1 + command.words + counted)
+            throw new IllegalArgumentException("Too few arguments: " + line);
+        String[] words = new String[command.words];
+        System.arraycopy(tokens, 1, words, 0, words.length);
+        int num = counted == 0 ? 0 : Integer.parseInt(tokens[1 + words.length]);
+        int[] nums = null;
+        if (command == Command.SCROLL_THROUGH_FEED) {
+            if (num < 0 || tokens.length < 2 + words.length + num)
+                throw new IllegalArgumentException("Too few actions: " + line);
+            nums = new int[num];
+            for (int i = 0; i < num; i++) nums[i] = Integer.parseInt(tokens[2 + words.length + i]);
+        }
+        return new Request(command, words, num, nums);
+    }
+}
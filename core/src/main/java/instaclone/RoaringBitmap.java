@@ -0,0 +1,277 @@
+package instaclone;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap over non-negative ints, in the style of Roaring bitmaps.
+ * Values are grouped by their high 16 bits. Each group is stored as a sorted char array while it
+ * holds at most 4096 values and as a 65536-bit long array above that, so sparse sets cost about
+ * two bytes per value and dense ones about one bit per value.
+ * Used for "posts seen by a user" and "posts liked by a user" over dense indexes.
+ */
+public class RoaringBitmap {
+    /** Largest group kept as a sorted array; beyond it a bitmap (8 KB) is smaller. */
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] highs = new char[0]; // high 16 bits of each group, sorted
+    private Object[] groups = new Object[0]; // char[] (sorted lows) or long[] (bitmap) per group
+    private int[] counts = new int[0]; // number of values in each group
+    private int numGroups;
+    private int cardinality;
+
+    // binary search over the group keys, returns -(insertion point) - 1 if absent
+    private int findGroup(char high) {
+        int lo = 0, hi = numGroups - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (highs[mid] < high) lo = mid + 1;
+            else if (highs[mid] > high) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    // binary search over the first count lows of an array group
+    private static int findLow(char[] lows, int count, char low) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lows[mid] < low) lo = mid + 1;
+            else if (lows[mid] > low) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    public boolean contains(int value) {
+        int g = findGroup((char) (value >>> 16));
+        if (g < 0) return false;
+        char low = (char) value;
+        Object group = groups[g];
+        if (group instanceof long[]) {
+            return (((long[]) group)[low >>> 6] & (1L << low)) != 0;
+        }
+        return findLow((char[]) group, counts[g], low) >= 0;
+    }
+
+    /**
+     * @return true if the value was added, false if it was already present
+     */
+    public boolean add(int value) {
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int g = findGroup(high);
+        if (g < 0) {
+            g = -g - 1;
+            insertGroup(g, high);
+        }
+        Object group = groups[g];
+        if (group instanceof long[]) {
+            long[] bits = (long[]) group;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) return false;
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] lows = (char[]) group;
+            int count = counts[g];
+            int pos = findLow(lows, count, low);
+            if (pos >= 0) return false;
+            pos = -pos - 1;
+            if (count == ARRAY_MAX) {
+                groups[g] = toBitmap(lows, count);
+                counts[g]++;
+                cardinality++;
+                ((long[]) groups[g])[low >>> 6] |= 1L << low;
+                return true;
+            }
+            if (count == lows.length) {
+                char[] bigger = new char[Math.min(ARRAY_MAX, Math.max(4, count * 2))];
+                System.arraycopy(lows, 0, bigger, 0, count);
+                groups[g] = lows = bigger;
+            }
+            System.arraycopy(lows, pos, lows, pos + 1, count - pos);
+            lows[pos] = low;
+        }
+        counts[g]++;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was removed, false if it was not present
+     */
+    public boolean remove(int value) {
+        int g = findGroup((char) (value >>> 16));
+        if (g < 0) return false;
+        char low = (char) value;
+        Object group = groups[g];
+        if (group instanceof long[]) {
+            long[] bits = (long[]) group;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) == 0) return false;
+            bits[low >>> 6] &= ~mask;
+            if (counts[g] - 1 == ARRAY_MAX) groups[g] = toArray(bits, ARRAY_MAX);
+        } else {
+            char[] lows = (char[]) group;
+            int pos = findLow(lows, counts[g], low);
+            if (pos < 0) return false;
+            System.arraycopy(lows, pos + 1, lows, pos, counts[g] - pos - 1);
+        }
+        cardinality--;
+        if (--counts[g] == 0) removeGroup(g);
+        return true;
+    }
+
+    /**
+     * Flips the value's bit.
+     * @return true if the value is now present, false if it was removed
+     */
+    public boolean flip(int value) {
+        if (add(value)) return true;
+        remove(value);
+        return false;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /** Passes every value to the action in increasing order. */
+    public void forEach(IntConsumer action) {
+        for (int g = 0; g < numGroups; g++) {
+            int base = highs[g] << 16;
+            Object group = groups[g];
+            if (group instanceof long[]) {
+                long[] bits = (long[]) group;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] lows = (char[]) group;
+                for (int i = 0; i < counts[g]; i++) action.accept(base | lows[i]);
+            }
+        }
+    }
+
+    /**
+     * Approximate heap footprint, counting object headers and array padding.
+     */
+    public long sizeInBytes() {
+        long bytes = 16 + 3 * 16 + highs.length * 2L + groups.length * 4L + counts.length * 4L;
+        for (int g = 0; g < numGroups; g++) {
+            bytes += 16 + (groups[g] instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) groups[g]).length * 2L);
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes written by writeTo: the group count, then each group's key, count and values
+     * (sorted chars for an array group, 1024 longs for a bitmap group).
+     */
+    public int serializedSize() {
+        int bytes = 4;
+        for (int g = 0; g < numGroups; g++) {
+            bytes += 2 + 4 + (groups[g] instanceof long[] ? BITMAP_WORDS * 8 : counts[g] * 2);
+        }
+        return bytes;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(numGroups);
+        for (int g = 0; g < numGroups; g++) {
+            out.putChar(highs[g]);
+            out.putInt(counts[g]);
+            if (groups[g] instanceof long[]) {
+                for (long word : (long[]) groups[g]) out.putLong(word);
+            } else {
+                char[] lows = (char[]) groups[g];
+                for (int i = 0; i < counts[g]; i++) out.putChar(lows[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a bitmap written by writeTo, leaving the buffer positioned after it.
+     */
+    public static RoaringBitmap readFrom(ByteBuffer in) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int n = in.getInt();
+        bitmap.highs = new char[n];
+        bitmap.groups = new Object[n];
+        bitmap.counts = new int[n];
+        for (int g = 0; g < n; g++) {
+            bitmap.highs[g] = in.getChar();
+            int count = in.getInt();
+            bitmap.counts[g] = count;
+            if (count > ARRAY_MAX) {
+                long[] bits = new long[BITMAP_WORDS];
+                in.asLongBuffer().get(bits);
+                in.position(in.position() + BITMAP_WORDS * 8);
+                bitmap.groups[g] = bits;
+            } else {
+                char[] lows = new char[Math.max(4, count)];
+                in.asCharBuffer().get(lows, 0, count);
+                in.position(in.position() + count * 2);
+                bitmap.groups[g] = lows;
+            }
+            bitmap.cardinality += count;
+        }
+        bitmap.numGroups = n;
+        return bitmap;
+    }
+
+    private void insertGroup(int g, char high) {
+        if (numGroups == highs.length) {
+            int capacity = Math.max(4, numGroups * 2);
+            char[] newHighs = new char[capacity];
+            Object[] newGroups = new Object[capacity];
+            int[] newCounts = new int[capacity];
+            System.arraycopy(highs, 0, newHighs, 0, numGroups);
+            System.arraycopy(groups, 0, newGroups, 0, numGroups);
+            System.arraycopy(counts, 0, newCounts, 0, numGroups);
+            highs = newHighs;
+            groups = newGroups;
+            counts = newCounts;
+        }
+        System.arraycopy(highs, g, highs, g + 1, numGroups - g);
+        System.arraycopy(groups, g, groups, g + 1, numGroups - g);
+        System.arraycopy(counts, g, counts, g + 1, numGroups - g);
+        highs[g] = high;
+        groups[g] = new char[4];
+        counts[g] = 0;
+        numGroups++;
+    }
+
+    private void removeGroup(int g) {
+        System.arraycopy(highs, g + 1, highs, g, numGroups - g - 1);
+        System.arraycopy(groups, g + 1, groups, g, numGroups - g - 1);
+        System.arraycopy(counts, g + 1, counts, g, numGroups - g - 1);
+        numGroups--;
+        groups[numGroups] = null;
+    }
+
+    private static long[] toBitmap(char[] lows, int count) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = 0; i < count; i++) bits[lows[i] >>> 6] |= 1L << lows[i];
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits, int count) {
+        char[] lows = new char[count];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                lows[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return lows;
+    }
+}
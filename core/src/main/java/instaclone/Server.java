@@ -0,0 +1,230 @@
+package instaclone;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Serves the commands of the input files over TCP. A client sends one command per line, in the
+ * same grammar Main reads, and gets back the lines Main would write for it followed by an empty
+ * line, which ends every response. Each connection is served by its own virtual thread, which
+ * blocks cheaply while its command runs on the Engine, so the number of open connections is
+ * not bounded by platform threads. Commands from all connections are ordered as they reach the
+ * engine; one connection's commands run in the order it sent them.
+ * A client may pipeline: lines already waiting when a command is read are sent to the engine
+ * with it as one batch, and the batch's responses are written with a single flush.
+ * Besides the commands, the line "dump" writes the metrics file once the commands sent before
+ * it are done, so a run can be inspected without dumping it at a fixed interval.
+ */
+public class Server {
+    private static final byte[] END = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MALFORMED = ("Error: Malformed command." + System.lineSeparator())
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FAILED = ("Error: Command failed." + System.lineSeparator())
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final String USAGE = "Usage: java instaclone.Server <port> [pull|push|hybrid] [--threads <n>]"
+            + " [--restore <snapshot_file>] [--wal <log_file>] [--sync-records <n>] [--sync-millis <ms>]"
+            + " [--metrics <json_file>] [--metrics-millis <ms>]" + System.lineSeparator()
+            + "--threads runs commands in parallel in pull mode only; push and hybrid run them one at a time.";
+
+    /** Most pipelined lines run as one batch. */
+    private static final int MAX_BATCH = 1024;
+    /** The line that dumps the metrics. */
+    private static final String DUMP = "dump";
+
+    private final Engine engine;
+    private final Metrics metrics; // null when not collected
+    private final Path metricsFile;
+
+    public Server(Engine engine) {
+        this(engine, null, null);
+    }
+
+    /**
+     * @param metrics The metrics that a dump line writes to metricsFile, or null to answer it
+     *                with an error.
+     */
+    public Server(Engine engine, Metrics metrics, Path metricsFile) {
+        this.engine = engine;
+        this.metrics = metrics;
+        this.metricsFile = metricsFile;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println(USAGE);
+            return;
+        }
+        int port;
+        try {
+            port = Integer.parseInt(args[0]);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: The port must be a number, got " + args[0] + ".");
+            System.out.println(USAGE);
+            return;
+        }
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), Engine.MAX_SHARDS);
+        String restoreFrom = null;
+        String walFile = null;
+        int syncRecords = 1;
+        long syncMillis = 0;
+        String metricsFile = null;
+        long metricsMillis = 0;
+        for (int i = 1; i < args.length; i++) {
+            try {
+                if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+                else if (args[i].equals("--restore") && i + 1 < args.length) restoreFrom = args[++i];
+                else if (args[i].equals("--wal") && i + 1 < args.length) walFile = args[++i];
+                else if (args[i].equals("--sync-records") && i + 1 < args.length) syncRecords = Integer.parseInt(args[++i]);
+                else if (args[i].equals("--sync-millis") && i + 1 < args.length) syncMillis = Long.parseLong(args[++i]);
+                else if (args[i].equals("--metrics") && i + 1 < args.length) metricsFile = args[++i];
+                else if (args[i].equals("--metrics-millis") && i + 1 < args.length) metricsMillis = Long.parseLong(args[++i]);
+                else if (FeedMode.named(args[i]) != null) User.feedMode = FeedMode.named(args[i]);
+                else {
+                    System.out.println("Error: Unknown or incomplete option " + args[i] + ".");
+                    System.out.println(USAGE);
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Error: " + args[i - 1] + " needs a number, got " + args[i] + ".");
+                System.out.println(USAGE);
+                return;
+            }
+        }
+        if (threads < 1 || threads > Engine.MAX_SHARDS) {
+            System.out.println("Error: --threads takes 1 to " + Engine.MAX_SHARDS + ".");
+            System.out.println(USAGE);
+            return;
+        }
+        WriteAheadLog.Position covered = restoreFrom == null ? null : Snapshot.restore(Path.of(restoreFrom));
+        if (walFile != null) WriteAheadLog.replay(Path.of(walFile), covered);
+        WriteAheadLog wal = walFile == null ? null : new WriteAheadLog(Path.of(walFile), syncRecords, syncMillis);
+        Engine engine = new Engine(threads, null, wal);
+        Metrics metrics = metricsFile == null ? null : new Metrics();
+        Path metricsPath = metricsFile == null ? null : Path.of(metricsFile);
+        if (metrics != null) {
+            Metrics.active = metrics;
+            TableStats.track();
+        }
+        Closeable dumps = metrics == null || metricsMillis == 0 ? null : metrics.dumpEvery(metricsPath, metricsMillis, engine);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (dumps != null) dumps.close();
+                engine.close();
+                if (wal != null) wal.close();
+                if (metrics != null) metrics.writeJson(metricsPath);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress(port));
+            System.out.println("Serving on port " + socket.getLocalPort() + " with " + threads + " shards.");
+            new Server(engine, metrics, metricsPath).serve(socket);
+        }
+    }
+
+    /**
+     * Accepts connections until the socket is closed, starting a virtual thread for each.
+     */
+    public void serve(ServerSocket socket) throws IOException {
+        while (!socket.isClosed()) {
+            Socket connection = socket.accept();
+            Thread.ofVirtual().name("connection-" + connection.getPort()).start(() -> handle(connection));
+        }
+    }
+
+    private void handle(Socket connection) {
+        try (connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = new BufferedOutputStream(connection.getOutputStream())) {
+            connection.setTcpNoDelay(true);
+            ArrayList<String> lines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                // lines the client pipelined behind this one form a batch
+                lines.clear();
+                lines.add(line);
+                while (lines.size() < MAX_BATCH && in.ready() && (line = in.readLine()) != null) lines.add(line);
+                for (byte[] output : run(lines)) {
+                    out.write(output);
+                    out.write(END);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away; nothing to answer
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the output of each line, empty for an unknown command as Main skips those
+    private byte[][] run(ArrayList<String> lines) throws InterruptedException {
+        byte[][] outputs = new byte[lines.size()][];
+        int from = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (!lines.get(i).equals(DUMP)) continue;
+            run(lines, from, i, outputs); // the commands before the dump run first
+            outputs[i] = dump();
+            from = i + 1;
+        }
+        run(lines, from, lines.size(), outputs);
+        return outputs;
+    }
+
+    // runs the command lines from to to as one batch, storing their outputs
+    private void run(ArrayList<String> lines, int from, int to, byte[][] outputs) throws InterruptedException {
+        Request[] batch = new Request[to - from];
+        int[] position = new int[to - from]; // line of each request in the batch
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            try {
+                Request request = Request.parse(lines.get(i));
+                if (request == null) {
+                    outputs[i] = new byte[0];
+                    continue;
+                }
+                position[count] = i;
+                batch[count++] = request;
+            } catch (IllegalArgumentException | NegativeArraySizeException e) {
+                outputs[i] = MALFORMED;
+            }
+        }
+        if (count == 0) return;
+        try {
+            byte[][] results = engine.call(Arrays.copyOf(batch, count)).get();
+            for (int k = 0; k < count; k++) outputs[position[k]] = results[k];
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            for (int k = 0; k < count; k++) outputs[position[k]] = FAILED;
+        }
+    }
+
+    private byte[] dump() throws InterruptedException {
+        String answer;
+        if (metrics == null) answer = "Error: No metrics are collected, start with --metrics <json_file>.";
+        else {
+            try {
+                metrics.dump(metricsFile, engine);
+                answer = "Metrics written to " + metricsFile + ".";
+            } catch (IOException e) {
+                e.printStackTrace();
+                answer = "Error: Could not write metrics " + metricsFile + ".";
+            }
+        }
+        return (answer + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    }
+}
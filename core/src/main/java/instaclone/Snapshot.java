@@ -0,0 +1,237 @@
+package instaclone;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of all users and posts, so a process can start from saved state instead of
+ * replaying every command that built it.
+ * The file holds, little-endian: a header with the position of the write-ahead log it covers,
+ * the user IDs in index order, the posts in index order
+ * (ID, author index, content), then per user the indexes they follow, their
+ * see_all_posts_from_user watermarks, their seen-posts bitmap and their liked-posts bitmap.
+ * Follower sets, like counts and like-ordered post trees are rebuilt from these; feed caches
+ * are rebuilt on first read.
+ * It is written through a FileChannel and read back from a memory mapping.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x49435331; // "ICS1"
+    private static final int VERSION = 3; // 2 had no log position, 1 kept likes per post
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private Snapshot(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the current users and posts to the file, replacing it, for a process without a log.
+     */
+    public static void write(Path path) throws IOException {
+        write(path, null);
+    }
+
+    /**
+     * Writes the current users and posts to the file, replacing it.
+     * The snapshot is written to a temporary file next to it and forced to disk, then moved over
+     * the old one in a single step, so a crash or I/O error on the way leaves the old snapshot
+     * as it was.
+     * @param covered The end of the log records the state includes, from WriteAheadLog.position,
+     *                or null if there is no log.
+     */
+    public static void write(Path path, WriteAheadLog.Position covered) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                new Snapshot(channel).writeAll(covered);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp); // left only if something failed
+        }
+    }
+
+    private void writeAll(WriteAheadLog.Position covered) throws IOException {
+        ensure(24);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putLong(covered == null ? -1 : covered.generation).putLong(covered == null ? 0 : covered.offset);
+        int userCount = User.users.size();
+        int postCount = Post.posts.size();
+        ensure(4);
+        buffer.putInt(userCount);
+        for (int i = 0; i < userCount; i++) {
+            putString(User.users.get(i).ID);
+        }
+        ensure(4);
+        buffer.putInt(postCount);
+        for (int i = 0; i < postCount; i++) {
+            Post post = Post.posts.get(i);
+            putString(post.ID);
+            ensure(4);
+            buffer.putInt(post.author.index);
+            putString(post.getContent());
+        }
+        for (int i = 0; i < userCount; i++) {
+            User user = User.users.get(i);
+            int following = user.followingCount();
+            ensure(4 + following * 4);
+            buffer.putInt(following);
+            if (following > 0) {
+                for (User followed : user.following) buffer.putInt(followed.index);
+            }
+            int watermarks = user.indexMap == null ? 0 : user.indexMap.size();
+            ensure(4 + watermarks * 8);
+            buffer.putInt(watermarks);
+            if (watermarks > 0) {
+                user.indexMap.forEach((viewed, count) -> buffer.putInt(viewed).putInt(count));
+            }
+            putBitmap(user.SeenPosts);
+            putBitmap(user.likedPosts);
+        }
+        flush();
+    }
+
+    // makes room for n bytes, growing the buffer for records larger than it
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) return;
+        flush();
+        if (buffer.capacity() < n) {
+            buffer = ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+    private void putString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+    // -1 for a null bitmap
+    private void putBitmap(RoaringBitmap bitmap) throws IOException {
+        if (bitmap == null) {
+            ensure(4);
+            buffer.putInt(-1);
+            return;
+        }
+        ensure(bitmap.serializedSize());
+        bitmap.writeTo(buffer);
+    }
+
+    /**
+     * Loads a snapshot into an empty process, giving users and posts the indexes they had.
+     * @return The log position it was written at, to pass to WriteAheadLog.replay, or null if it
+     *         was written without a log.
+     * @throws IllegalStateException if users or posts already exist
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static WriteAheadLog.Position restore(Path path) throws IOException {
+        if (User.users.size() > 0 || Post.posts.size() > 0)
+            throw new IllegalStateException("Snapshots can only be restored before any user or post is created");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Snapshot is larger than a single mapping (2 GB): " + path);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return readAll(map);
+        }
+    }
+
+    private static WriteAheadLog.Position readAll(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+        long generation = in.getLong();
+        long offset = in.getLong();
+        byte[] scratch = new byte[256];
+        int userCount = in.getInt();
+        User.allUsers = new StripedHashMap<>(2 * userCount + 2, true); // no rehashing while loading
+        for (int i = 0; i < userCount; i++) {
+            User.createUser(getString(in, scratch));
+        }
+        int postCount = in.getInt();
+        Post.reserve(postCount);
+        for (int i = 0; i < postCount; i++) {
+            String id = getString(in, scratch);
+            User author = User.users.get(in.getInt());
+            String content = getString(in, scratch);
+            Post.restore(id, author, content);
+        }
+        // follow edges go straight into presized maps and sorted follower arrays, rather than
+        // through followUser one at a time
+        int[] likeCounts = new int[postCount];
+        int[] followerCounts = new int[userCount];
+        int[][] followed = new int[userCount][];
+        for (int i = 0; i < userCount; i++) {
+            User user = User.users.get(i);
+            int following = in.getInt();
+            if (following > 0) {
+                int[] targets = new int[following];
+                user.following = new IntObjectHashMap<>(2 * following + 2);
+                for (int j = 0; j < following; j++) {
+                    int target = in.getInt();
+                    targets[j] = target;
+                    followerCounts[target]++;
+                    user.following.put(target, User.users.get(target));
+                }
+                followed[i] = targets;
+            }
+            int watermarks = in.getInt();
+            if (watermarks > 0) {
+                user.indexMap = new IntIntHashMap(watermarks * 2);
+                for (int j = 0; j < watermarks; j++) {
+                    user.indexMap.put(in.getInt(), in.getInt());
+                }
+            }
+            user.SeenPosts = getBitmap(in);
+            user.likedPosts = getBitmap(in);
+            if (user.likedPosts != null) user.likedPosts.forEach(post -> likeCounts[post]++);
+        }
+        for (int i = 0; i < postCount; i++) {
+            Post.posts.get(i).restoreLikes(likeCounts[i]);
+        }
+        int[][] followers = new int[userCount][];
+        for (int i = 0; i < userCount; i++) {
+            if (followerCounts[i] > 0) followers[i] = new int[followerCounts[i]];
+            followerCounts[i] = 0;
+        }
+        for (int i = 0; i < userCount; i++) { // ascending follower order, as CompactIntSet keeps them
+            if (followed[i] == null) continue;
+            for (int target : followed[i]) followers[target][followerCounts[target]++] = i;
+        }
+        for (int i = 0; i < userCount; i++) {
+            if (followers[i] == null) continue;
+            User user = User.users.get(i);
+            user.followers = new CompactIntSet(followers[i], followers[i].length);
+            user.celebrity = User.feedMode == FeedMode.HYBRID && followers[i].length >= User.CELEBRITY_FOLLOWERS;
+        }
+        return generation < 0 ? null : new WriteAheadLog.Position(generation, offset);
+    }
+
+    private static String getString(ByteBuffer in, byte[] scratch) {
+        int length = in.getInt();
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    private static RoaringBitmap getBitmap(ByteBuffer in) {
+        int mark = in.position();
+        if (in.getInt() == -1) return null;
+        in.position(mark);
+        return RoaringBitmap.readFrom(in);
+    }
+}
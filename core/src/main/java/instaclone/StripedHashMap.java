@@ -0,0 +1,220 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Thread-safe hash map built from lock-striped segments, each an open-addressing HashMap behind
+ * its own lock. A key's segment is picked from the low bits of its spread hash code, while the
+ * segment's table uses the top bits, so keys of one segment still spread over its whole table.
+ * Threads working on different segments never contend and lookups only take a read lock, so
+ * readers of one segment run in parallel too. A resize, incremental or not, stays inside one
+ * segment and holds up only the keys that live there.
+ * size() and iteration look at one segment at a time and are not atomic across the map.
+ */
+public class StripedHashMap<K, V> implements Iterable<K> {
+    /** Segments per map, a power of two; more than the cores that will share the map. */
+    private static final int SEGMENTS = 64;
+
+    private static final class Segment<K, V> {
+        final StampedLock lock = new StampedLock();
+        final HashMap<K, V> map;
+
+        Segment(int tableSize, boolean incremental) {
+            map = new HashMap<>(tableSize, incremental);
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+
+    public StripedHashMap(int tableSize, boolean incremental) {
+        segments = newSegments(SEGMENTS);
+        int segmentSize = Math.max(tableSize / SEGMENTS, Hashing.MIN_CAPACITY);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment<>(segmentSize, incremental);
+    }
+    public StripedHashMap(int tableSize) {
+        this(tableSize, false);
+    }
+    public StripedHashMap() {
+        this(101);
+    }
+
+    // generic arrays cannot be created directly; the array only ever holds Segment<K, V>
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int count) {
+        return (Segment<K, V>[]) new Segment<?, ?>[count];
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        return segments[(h ^ h >>> 16) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * This method returns the value associated with the key.
+     * @param key the key
+     * @return the value associated with the key, or null if it is not present
+     */
+    public V getValue(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.readLock();
+        try {
+            return segment.map.getValue(key);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * This method checks whether the key is in the map.
+     */
+    public boolean contains(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.readLock();
+        try {
+            return segment.map.contains(key);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * This method associates the value with the key, replacing any previous value.
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            segment.map.put(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Associates the value with the key, atomically, if the key is absent.
+     * @return the value already associated with the key, or null if the value was added
+     */
+    public V putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.putIfAbsent(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the value of the key, atomically adding the one built by the function if absent.
+     * The function runs under the segment's lock, so it must be short and must not use this map.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.computeIfAbsent(key, create);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * This method removes the key and its value from the map.
+     * @return true if the key was present
+     */
+    public boolean remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.remove(key);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the number of entries, summed over the segments one at a time
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Counts the rehashes of every segment in stats from now on, or stops counting them if null.
+     */
+    public void trackStats(TableStats stats) {
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.map.trackStats(stats);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Adds every segment's table to the scan of stats, one segment at a time under its read lock.
+     */
+    public void scanStats(TableStats stats) {
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                segment.map.scanStats(stats);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Iterates over the keys of one segment at a time, each copied under its read lock, so the
+     * iterator never fails on concurrent updates and sees each segment as it was at one moment.
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            private int next; // next segment to copy
+            private Iterator<K> current = copy();
+
+            private Iterator<K> copy() {
+                ArrayList<K> keys = new ArrayList<>();
+                while (keys.isEmpty() && next < segments.length) {
+                    Segment<K, V> segment = segments[next++];
+                    long stamp = segment.lock.readLock();
+                    try {
+                        for (K key : segment.map) keys.add(key);
+                    } finally {
+                        segment.lock.unlockRead(stamp);
+                    }
+                }
+                return keys.iterator();
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!current.hasNext() && next < segments.length) current = copy();
+                return current.hasNext();
+            }
+
+            @Override
+            public K next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package instaclone;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of all the hash tables that play one role, such as the 64 segments of
+ * User.allUsers: how full they are, how many slots a successful lookup probes, how much memory
+ * the tables themselves hold, and how often and for how long they were rehashed.
+ * It is all opt in. Tables count rehashes only after track gives them a TableStats, and the rest
+ * is gathered by walking the tables when writeJson is called, so the maps pay nothing until then.
+ * The users' SeenPosts bitmaps are totalled separately by scanSeenPosts, on the thread that owns
+ * them.
+ * Memory counts the table arrays, assuming compressed references, and not the keys and values.
+ * The time of an incremental rehash covers allocating the new table. Moving the entries happens
+ * in the puts and removes after it.
+ */
+public class TableStats {
+    public static final TableStats USERS = new TableStats("allUsers");
+    public static final TableStats POSTS = new TableStats("allPosts");
+
+    private final String role;
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rehashNanos = new LongAdder();
+    // totals of the current scan
+    private long tables;
+    private long slots;
+    private long entries;
+    private long probes; // slots probed to find every entry once
+    private long maxProbe;
+    private long bytes;
+
+    public TableStats(String role) {
+        this.role = role;
+    }
+
+    /**
+     * Totals of the users' SeenPosts bitmaps at one moment.
+     */
+    public static final class Bitmaps {
+        final long bitmaps;
+        final long values;
+        final long bytes;
+
+        Bitmaps(long bitmaps, long values, long bytes) {
+            this.bitmaps = bitmaps;
+            this.values = values;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Starts recording the rehashes of the global registries, USERS and POSTS. Snapshot.restore
+     * replaces both registries, so call it after restoring, as Main and Server do.
+     */
+    public static void track() {
+        User.allUsers.trackStats(USERS);
+        Post.allPosts().trackStats(POSTS);
+    }
+
+    void rehashed(long nanos) {
+        rehashes.increment();
+        rehashNanos.add(nanos);
+    }
+
+    /**
+     * Adds one table to the current scan.
+     * @param probes Sum over the entries of the slots probed to find each one.
+     */
+    synchronized void addTable(long slots, long entries, long probes, long maxProbe, long bytes) {
+        tables++;
+        this.slots += slots;
+        this.entries += entries;
+        this.probes += probes;
+        this.maxProbe = Math.max(this.maxProbe, maxProbe);
+        this.bytes += bytes;
+    }
+
+    /**
+     * Scans the open-addressing table given by hashes, where 0 is an empty slot, and keys, where
+     * skip marks a slot that is not an entry although its hash is set; skip may be null.
+     * Slots are probed from the home slot of each hash by Hashing.indexFor, as the tables do.
+     * @param arrays Number of arrays of the table's length, for its memory.
+     */
+    void addTable(int[] hashes, Object[] keys, Object skip, int arrays) {
+        int size = hashes.length;
+        long entries = 0, probes = 0, maxProbe = 0;
+        for (int i = 0; i < size; i++) {
+            if (hashes[i] == 0 || (skip != null && keys[i] == skip)) continue;
+            long probe = ((i - Hashing.indexFor(hashes[i], size)) & (size - 1)) + 1;
+            entries++;
+            probes += probe;
+            maxProbe = Math.max(maxProbe, probe);
+        }
+        addTable(size, entries, probes, maxProbe, arrays * arrayBytes(size));
+    }
+
+    // heap size of an array of 4-byte elements: 16-byte header, rounded up to 8 bytes
+    private static long arrayBytes(int length) {
+        return 16 + ((4L * length + 7) & ~7);
+    }
+
+    /**
+     * Totals the users' SeenPosts bitmaps. Each belongs to the shard of its user, so this must
+     * run where no command does: on the thread that runs them, between commands, or through
+     * Engine.runAlone.
+     */
+    public static Bitmaps scanSeenPosts() {
+        long bitmaps = 0, values = 0, bytes = 0;
+        for (int i = 0; i < User.users.size(); i++) {
+            RoaringBitmap seen = User.users.get(i).SeenPosts;
+            if (seen == null) continue;
+            bytes += seen.sizeInBytes();
+            values += seen.cardinality();
+            bitmaps++;
+        }
+        return new Bitmaps(bitmaps, values, bytes);
+    }
+
+    /**
+     * Walks the tables of the registries, USERS and POSTS, and writes their statistics and the
+     * totals of the users' SeenPosts bitmaps as a JSON array.
+     * The registries are scanned one segment at a time under its read lock, so they may be
+     * walked while commands run.
+     * @param seenPosts The totals from scanSeenPosts, or null to leave them out.
+     */
+    public static void writeJson(Writer out, String indent, Bitmaps seenPosts) throws IOException {
+        USERS.clearScan();
+        User.allUsers.scanStats(USERS);
+        POSTS.clearScan();
+        Post.allPosts().scanStats(POSTS);
+        out.write("[\n");
+        USERS.writeRole(out, indent + "  ");
+        out.write(",\n");
+        POSTS.writeRole(out, indent + "  ");
+        if (seenPosts != null) {
+            out.write(",\n" + indent + "  {\"role\": \"SeenPosts\", \"bitmaps\": " + seenPosts.bitmaps
+                    + ", \"entries\": " + seenPosts.values + ", \"bytes\": " + seenPosts.bytes + "}");
+        }
+        out.write("\n" + indent + "]");
+    }
+
+    private synchronized void clearScan() {
+        tables = slots = entries = probes = maxProbe = bytes = 0;
+    }
+
+    private synchronized void writeRole(Writer out, String indent) throws IOException {
+        out.write(indent + "{\"role\": \"" + role + "\", \"tables\": " + tables + ", \"slots\": " + slots
+                + ", \"entries\": " + entries
+                + ", \"loadFactor\": " + (slots == 0 ? 0 : Math.round(1000.0 * entries / slots) / 1000.0)
+                + ", \"averageProbe\": " + (entries == 0 ? 0 : Math.round(1000.0 * probes / entries) / 1000.0)
+                + ", \"maxProbe\": " + maxProbe
+                + ", \"rehashes\": " + rehashes.sum() + ", \"rehashNanos\": " + rehashNanos.sum()
+                + ", \"bytes\": " + bytes + "}");
+    }
+}
@@ -0,0 +1,373 @@
+package instaclone;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents a User in a social media-like system.
+ * Users can follow other users, create posts, see posts, and generate a personalized feed.
+ * The state of a user and their posts takes no locks: one thread at a time owns it, the worker
+ * of the user's shard when an Engine runs the commands. The one exception is the ranking of
+ * their posts, which likes running on their likers' shards may move at once, see rankingLock.
+ */
+public class User{
+    /**
+     * Unique identifier for the user.
+     */
+    public final String ID;
+    /**
+     * Dense index of the user, assigned in creation order. Per-user collections are keyed by it.
+     */
+    public final int index;
+    /**
+     * Table of all users by index.
+     */
+    public static final IdTable<User> users = new IdTable<>();
+    /**
+     * A global map of all users with their IDs as keys.
+     * It is safe for concurrent use and resizes incrementally, one segment at a time.
+     */
+    public static StripedHashMap<String,User> allUsers = new StripedHashMap<>(101, true);
+    /**
+     * Map of users this user is following, with user indexes as keys and User objects as values.
+     */
+    public IntObjectHashMap<User> following;
+    /**
+     * Indexes of the users following this user, kept in step with their following maps.
+     * Posts and likes are fanned out to their feed caches.
+     */
+    public CompactIntSet followers;
+    /**
+     * How feeds are built, see FeedMode.
+     */
+    public static FeedMode feedMode = FeedMode.PULL;
+    /**
+     * Follower count at which a user becomes a celebrity in HYBRID mode. They stop being one
+     * when they fall below half of it, so a user near the threshold does not flip back and forth.
+     */
+    public static int CELEBRITY_FOLLOWERS = 100;
+    /**
+     * True if this user's posts are merged into feeds at read time instead of being pushed to
+     * followers' feed caches. Only HYBRID mode sets it.
+     */
+    public boolean celebrity;
+    /**
+     * Materialized feed of this user in PUSH mode, or null until they read their feed or after it was evicted.
+     */
+    public FeedCache feedCache;
+
+    /**
+     * Map that tracks the last seen index of posts for followed users for see_all_post commands,
+     * keyed by the followed user's index.
+     */
+    public IntIntHashMap indexMap;
+    /**
+     * List of posts created by this user.
+     */
+    public ArrayList<Post> posts;
+    /**
+     * The same posts ordered by likes, then ID, so the best ones can be read off without sorting.
+     * Post.like repositions a post when its likes change, see rerank.
+     */
+    public AvlTree<Post> rankedPosts;
+    /**
+     * Counts the changes to rankedPosts, so a feed cursor can tell when its place in them is stale.
+     */
+    int rankVersion;
+    /**
+     * Held by every reader and writer of rankedPosts and rankVersion, and of the likes of the
+     * posts in them. Likes of this user's posts may rerank them from several threads at once.
+     */
+    final ReentrantLock rankingLock = new ReentrantLock();
+    /**
+     * Bitmap of the indexes of the posts this user has seen.
+     */
+    public RoaringBitmap SeenPosts;
+    /**
+     * Bitmap of the indexes of the posts this user likes. Likes are kept by the liker rather
+     * than the post, so users liking the same post never write to the same set.
+     */
+    RoaringBitmap likedPosts;
+
+    @Override
+    public int hashCode() {
+        return ID.hashCode(); // Use the hashCode of the ID field
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true; // Check for reference equality
+        if (obj == null || getClass() != obj.getClass()) return false; // Check class type
+        User user = (User) obj;
+        return ID.equals(user.ID); // Compare based on the ID field
+    }
+
+    /**
+     * Creates a new User with the specified ID and gives it the next index.
+     * Registering it in the global map is up to the caller.
+     * @param ID The unique identifier for the user.
+     */
+    User(String ID) {
+        this.ID = ID;
+        this.index = users.add(this);
+    }
+
+
+    /**
+     * Checks if a user exists in the global map.
+     * @param ID The unique identifier of the user to check.
+     * @return True if the user exists, false otherwise.
+     */
+    public static boolean isUser(String ID) {
+        return allUsers.contains(ID);
+    }
+
+    /**
+     * Retrieves a user from the global map based on their ID.
+     * @param ID The unique identifier of the user to retrieve.
+     * @return The User object, or null if the user does not exist.
+     */
+    public static User getUser(String ID) {
+        return allUsers.getValue(ID);
+    }
+
+    /**
+     * Creates a new user if a user with the given ID does not already exist.
+     * @param ID The unique identifier for the new user.
+     * @return True if the user was successfully created, false otherwise.
+     */
+    public static boolean createUser(String ID) {
+        User[] created = new User[1];
+        allUsers.computeIfAbsent(ID, id -> created[0] = new User(id)); // only a new user takes an index
+        return created[0] != null;
+    }
+
+    /**
+     * Follows the given user if not already following them.
+     * @param user The user to follow.
+     * @return True if the user was successfully followed, false otherwise.
+     */
+    public boolean followUser(User user) { // follow the user if not already following
+        if (user.equals(this)) return false;
+        if (following == null) {
+            following = new IntObjectHashMap<>();
+        }
+        if (following.putIfAbsent(user.index, user) != null) return false;
+        if (user.followers == null) {
+            user.followers = new CompactIntSet();
+        }
+        user.followers.add(index);
+        if (feedMode == FeedMode.HYBRID && !user.celebrity && user.followers.size() >= CELEBRITY_FOLLOWERS) {
+            user.celebrity = true; // followers read their posts from rankedPosts from now on
+            user.followers.forEach(i -> {
+                FeedCache cache = users.get(i).feedCache;
+                if (cache != null) cache.removeAuthor(user);
+            });
+        }
+        if (feedCache != null) feedCache.addAuthor(user);
+        return true;
+    }
+
+    /**
+     * Unfollows the given user if currently following them.
+     * @param user The user to unfollow.
+     * @return True if the user was successfully unfollowed, false otherwise.
+     */
+    public boolean unfollowUser(User user) { // unfollow the user if following
+        if (following == null || following.remove(user.index) == null) return false;
+        user.followers.remove(index);
+        if (feedCache != null) feedCache.removeAuthor(user);
+        if (user.celebrity && user.followers.size() < CELEBRITY_FOLLOWERS / 2) {
+            user.celebrity = false; // back to being pushed
+            user.followers.forEach(i -> {
+                FeedCache cache = users.get(i).feedCache;
+                if (cache != null) cache.addAuthor(user);
+            });
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of users following this user.
+     */
+    public int followerCount() {
+        return followers == null ? 0 : followers.size();
+    }
+
+    /**
+     * @return The number of users this user follows.
+     */
+    public int followingCount() {
+        return following == null ? 0 : following.size();
+    }
+
+    /**
+     * Marks a post as seen by the user.
+     * @param post The post to mark as seen.
+     */
+    public void seePost(Post post) {
+        if (SeenPosts == null)
+            SeenPosts = new RoaringBitmap();
+        SeenPosts.add(post.index);
+        if (feedCache != null) feedCache.remove(post);
+    }
+
+    /**
+     * Checks whether the user has seen a post, on its own or through see_all_posts_from_user.
+     * @param post The post to check.
+     * @return True if the post was seen, false otherwise.
+     */
+    public boolean hasSeen(Post post) {
+        if (SeenPosts != null && SeenPosts.contains(post.index)) return true;
+        int seenCount = indexMap == null ? 0 : indexMap.getOrDefault(post.author.index, 0);
+        // posts are counted in creation order, which is also post index order
+        return seenCount > 0 && post.index <= post.author.posts.get(seenCount - 1).index;
+    }
+
+    /**
+     * Flips whether this user likes the post.
+     * @return True if the user now likes the post.
+     */
+    boolean toggleLike(Post post) {
+        if (likedPosts == null)
+            likedPosts = new RoaringBitmap();
+        return likedPosts.flip(post.index);
+    }
+    /**
+     * @return True if this user likes the post.
+     */
+    boolean likes(Post post) {
+        return likedPosts != null && likedPosts.contains(post.index);
+    }
+    /**
+     * Moves one of this user's posts to the place its current like count gives it in rankedPosts.
+     * Each like counts itself before it takes the lock, so the last of several concurrent likes
+     * to get it finds the final count. The post's place depends on likes, so it leaves the tree
+     * before likes changes.
+     */
+    void rerank(Post post) {
+        rankingLock.lock();
+        try {
+            int count = post.likeCount();
+            if (count == post.likes) return;
+            rankedPosts.delete(post);
+            post.likes = count;
+            rankedPosts.insert(post);
+            rankVersion++;
+        } finally {
+            rankingLock.unlock();
+        }
+    }
+
+    /**
+     * Marks all posts of a specified user as seen.
+     * @param viewed The user whose posts are to be marked as seen.
+     */
+    public void seeAllPosts(User viewed) {
+        if (viewed.posts == null) {
+            return;
+        }
+        if (indexMap == null) {
+            indexMap = new IntIntHashMap();
+        }
+        indexMap.put(viewed.index,viewed.posts.size());
+        //to avoid putting all posts to viewedPosts set of viewer a small improvement
+        if (feedCache != null) feedCache.removeAuthor(viewed);
+    }
+
+    /**
+     * Creates a feed of posts from followed users.
+     * @return A list of posts from followed users, excluding already seen posts.
+     */
+    public ArrayList<Post> createFeed() {
+        ArrayList<Post> feed = new ArrayList<>();
+        if (following == null) return feed;
+        for (User u : following) {
+            if (u.posts == null) continue;
+            int i = indexMap == null ? 0 : indexMap.getOrDefault(u.index, 0);
+            for (; i < u.posts.size(); i++) {
+                Post post = u.posts.get(i);
+                if (SeenPosts == null || !SeenPosts.contains(post.index))
+                    feed.add(post);
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * Generates a sorted feed of posts based on their relevance.
+     * It merges the followed users' like-ordered posts and stops after num posts, so the cost
+     * depends on num and the number of followed users rather than on their post counts.
+     * In PUSH mode it reads the user's feed cache instead, and in HYBRID mode it merges the
+     * cache with the posts of the celebrities the user follows.
+     * @param num The maximum number of posts to include in the feed.
+     * @return A list of the top relevant posts from the feed.
+     */
+    public ArrayList<Post> generateFeed(int num) {
+        if (feedMode != FeedMode.PULL) {
+            ArrayList<Post> cached = FeedCache.of(this).top(num);
+            if (cached != null) {
+                if (feedMode == FeedMode.PUSH) return cached;
+                return mergeCelebrities(cached, num);
+            }
+        }
+        ArrayList<Post> result = new ArrayList<>();
+        FeedIterator feed = new FeedIterator(this);
+        for (int i = 0; i < num && feed.hasNext(); i++) {
+            result.add(feed.next());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the user's feed as a cursor that finds each next post only when asked for it, so
+     * reading a few posts of a long feed costs no more than those few. It merges the followed
+     * users' posts like generateFeed does in PULL mode, whatever the feed mode.
+     * @param ranking How posts that change while the cursor is in use are ranked.
+     * @return The unseen posts of the followed users, from the highest ranked down.
+     */
+    public Iterator<Post> feedCursor(FeedRanking ranking) {
+        return new FeedIterator(this, author -> true, ranking);
+    }
+
+    // merges the top of the feed cache with the posts of followed celebrities, keeping num posts
+    private ArrayList<Post> mergeCelebrities(ArrayList<Post> cached, int num) {
+        FeedIterator celebrities = new FeedIterator(this, author -> author.celebrity);
+        ArrayList<Post> result = new ArrayList<>();
+        int i = 0;
+        Post celebrityPost = celebrities.hasNext() ? celebrities.next() : null;
+        while (result.size() < num) {
+            Post cachedPost = i < cached.size() ? cached.get(i) : null;
+            if (celebrityPost != null && (cachedPost == null || celebrityPost.compareTo(cachedPost) > 0)) {
+                result.add(celebrityPost);
+                celebrityPost = celebrities.hasNext() ? celebrities.next() : null;
+            } else if (cachedPost != null) {
+                result.add(cachedPost);
+                i++;
+            } else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the user's own posts based on their relevance.
+     * @return A sorted list of the user's posts.
+     */
+    public ArrayList<Post> sortPosts() {
+        ArrayList<Post> result = new ArrayList<>();
+        rankingLock.lock();
+        try {
+            if (rankedPosts == null) return result;
+            Iterator<Post> it = rankedPosts.descendingIterator();
+            while (it.hasNext()) {
+                result.add(it.next());
+            }
+        } finally {
+            rankingLock.unlock();
+        }
+        return result;
+    }
+
+}
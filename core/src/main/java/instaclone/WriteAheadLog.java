@@ -0,0 +1,332 @@
+package instaclone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of the commands that change state, written before they run so that they
+ * survive a crash. Recovery restores the latest snapshot, if any, and replays the log on top.
+ * The file starts with a header holding its generation, which every checkpoint increments as it
+ * empties the log. A snapshot records the Position of the log it covers, and replay skips the
+ * records before it, so a crash between writing a snapshot and the checkpoint does not apply
+ * them twice.
+ * Each record is its payload length, a CRC32C of the payload and the payload: the command's
+ * ordinal, then its words as length-prefixed UTF-8 and its numbers as ints. A torn or corrupt
+ * tail left by a crash fails its length or checksum; replay stops there and cuts it off.
+ * Records are buffered and written out with group commit: an fsync after every syncRecords
+ * records or once syncMillis have passed since the last one, whichever comes first. A timer
+ * writes out and forces a tail left behind when records stop arriving, so none waits longer than
+ * syncMillis; an I/O error it meets is thrown by the next append or close.
+ * With both at 0 the log is written when its buffer fills and never forced, leaving
+ * durability to the operating system.
+ */
+public final class WriteAheadLog implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAGIC = 0x49435731; // "ICW1"
+    private static final int FILE_HEADER = 12; // magic and generation
+    private static final int HEADER = 8; // length and checksum of a record
+
+    private final FileChannel channel;
+    private final int syncRecords;
+    private final long syncNanos;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+    private int recordStart;
+    private int unsynced; // records appended since the last fsync
+    private long lastSync = System.nanoTime();
+    private long generation;
+    private final ScheduledExecutorService timer; // null without a time limit
+    private UncheckedIOException timerFailure;
+
+    /**
+     * A place in the log: the end of the records before offset, in the given generation of it.
+     */
+    public static final class Position {
+        public final long generation;
+        public final long offset;
+
+        public Position(long generation, long offset) {
+            this.generation = generation;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Opens the log for appending after its existing records.
+     * @param syncRecords Records per fsync, 0 for no count limit.
+     * @param syncMillis Longest a record waits to be forced, 0 for no time limit.
+     */
+    public WriteAheadLog(Path path, int syncRecords, long syncMillis) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = readHeader(channel, path);
+        channel.position(channel.size());
+        this.syncRecords = syncRecords;
+        this.syncNanos = syncMillis * 1_000_000;
+        if (syncMillis > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::syncIdle, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    // timer: forces records that have waited since the last tick with no append to do it
+    private synchronized void syncIdle() {
+        if (unsynced == 0 || timerFailure != null) return;
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            timerFailure = e;
+        }
+    }
+
+    /**
+     * Logs a command made of words only.
+     */
+    public synchronized void append(Command command, String... words) {
+        begin(command);
+        for (String word : words) putString(word);
+        end();
+    }
+
+    /**
+     * Logs a scroll_through_feed, whose action list is stored as ints.
+     */
+    public synchronized void appendScroll(String userID, int[] nums) {
+        begin(Command.SCROLL_THROUGH_FEED);
+        putString(userID);
+        ensure(4 + nums.length * 4);
+        buffer.putInt(nums.length);
+        for (int n : nums) buffer.putInt(n);
+        end();
+    }
+
+    private void begin(Command command) {
+        if (timerFailure != null) throw timerFailure;
+        ensure(HEADER + 1);
+        recordStart = buffer.position();
+        buffer.position(recordStart + HEADER);
+        buffer.put((byte) command.ordinal());
+    }
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+    private void end() {
+        int payloadStart = recordStart + HEADER;
+        int length = buffer.position() - payloadStart;
+        crc.reset();
+        crc.update(buffer.array(), payloadStart, length);
+        buffer.putInt(recordStart, length).putInt(recordStart + 4, (int) crc.getValue());
+        unsynced++;
+        if (syncRecords > 0 && unsynced >= syncRecords
+                || syncNanos > 0 && System.nanoTime() - lastSync >= syncNanos) {
+            sync();
+        }
+    }
+
+    // makes room for n more bytes of the current record, moving it to the front or to a bigger buffer
+    private void ensure(int n) {
+        if (buffer.remaining() >= n) return;
+        int pending = buffer.position() - recordStart; // the unfinished record stays in the buffer
+        buffer.limit(recordStart).position(0);
+        write(buffer);
+        ByteBuffer target = buffer;
+        if (pending + n > buffer.capacity()) {
+            target = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, pending + n)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        System.arraycopy(buffer.array(), recordStart, target.array(), 0, pending);
+        buffer = target;
+        buffer.clear().position(pending);
+        recordStart = 0;
+    }
+    private void write(ByteBuffer data) {
+        try {
+            while (data.hasRemaining()) channel.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes out all complete records and forces them to disk.
+     */
+    public synchronized void sync() {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+        recordStart = 0;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        unsynced = 0;
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Writes out and forces all complete records.
+     * @return The end of them, to store in a snapshot that holds everything they recorded.
+     */
+    public synchronized Position position() throws IOException {
+        sync();
+        return new Position(generation, channel.position());
+    }
+
+    /**
+     * Empties the log and starts its next generation, once a snapshot holds everything it
+     * recorded. The records go first, so a crash in between leaves an empty log of the
+     * generation the snapshot covers.
+     */
+    public synchronized void checkpoint() throws IOException {
+        sync();
+        channel.truncate(FILE_HEADER);
+        channel.force(true);
+        writeHeader(channel, generation + 1);
+        channel.force(true);
+        generation++;
+        channel.position(FILE_HEADER);
+    }
+
+    // the generation in the log's header, first writing a header of generation 0 to a new log
+    private static long readHeader(FileChannel channel, Path path) throws IOException {
+        if (channel.size() < FILE_HEADER) { // new, or cut short by a crash while being created
+            channel.truncate(0);
+            writeHeader(channel, 0);
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) channel.read(header, header.position());
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("Not a log file: " + path);
+        return header.getLong();
+    }
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putLong(generation).flip();
+        while (header.hasRemaining()) channel.write(header, header.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        // not shutdownNow: interrupting a tick in the middle of force would close the channel
+        if (timer != null) timer.shutdown();
+        synchronized (this) {
+            try {
+                if (timerFailure != null) throw timerFailure;
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the logged commands again, discarding their output, and cuts off a torn tail.
+     * @return The number of commands replayed.
+     */
+    public static int replay(Path path) throws IOException {
+        return replay(path, null);
+    }
+
+    /**
+     * Runs the logged commands after those a snapshot already holds, discarding their output,
+     * and cuts off a torn tail.
+     * @param covered The position the snapshot was written at, or null to run every command.
+     *                A log of another generation was checkpointed since, and runs in full.
+     * @return The number of commands replayed.
+     */
+    public static int replay(Path path, Position covered) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long generation = readHeader(channel, path);
+            long skipTo = covered != null && covered.generation == generation ? covered.offset : 0;
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Log is larger than a single mapping (2 GB): " + path);
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            OutputSink discard = OutputSink.discarding();
+            CRC32C crc = new CRC32C();
+            Command[] commands = Command.values();
+            int replayed = 0;
+            in.position(FILE_HEADER);
+            while (in.remaining() >= HEADER) {
+                int start = in.position();
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) break;
+                crc.reset();
+                crc.update(in.slice(in.position(), length));
+                if ((int) crc.getValue() != checksum) break;
+                int op = in.get();
+                if (op < 0 || op >= commands.length) break;
+                if (start >= skipTo) {
+                    run(commands[op], in, discard);
+                    replayed++;
+                }
+                in.position(start + HEADER + length);
+            }
+            if (in.position() < size) channel.truncate(in.position()); // drop the torn tail
+            return replayed;
+        }
+    }
+
+    private static void run(Command command, ByteBuffer in, OutputSink out) {
+        switch (command) {
+            case CREATE_USER:
+                Operations.createUser(getString(in), out);
+                break;
+            case CREATE_POST: {
+                String user = getString(in), post = getString(in), content = getString(in);
+                Operations.createPost(post, user, content, out);
+                break;
+            }
+            case FOLLOW_USER:
+                Operations.followUser(getString(in), getString(in), out);
+                break;
+            case UNFOLLOW_USER:
+                Operations.unfollowUser(getString(in), getString(in), out);
+                break;
+            case SEE_POST:
+                Operations.seePost(getString(in), getString(in), out);
+                break;
+            case SEE_ALL_POSTS_FROM_USER:
+                Operations.seeAllPosts(getString(in), getString(in), out);
+                break;
+            case TOGGLE_LIKE:
+                Operations.toggleLike(getString(in), getString(in), out);
+                break;
+            case SCROLL_THROUGH_FEED: {
+                String user = getString(in);
+                int[] nums = new int[in.getInt()];
+                for (int i = 0; i < nums.length; i++) nums[i] = in.getInt();
+                Operations.scrollThroughFeed(user, nums.length, nums, out);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Command " + command + " is not logged");
+        }
+    }
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs random adds, removes and lookups on CompactIntSet and a TreeSet side by side, over value
+ * ranges small enough for elements to go back and forth between the base array and both delta
+ * buffers, and checks that every answer, the size and the iteration order agree.
+ */
+class CompactIntSetTest {
+    private static final int STEPS = 200_000;
+
+    @Test
+    void matchesTreeSetFromEmpty() {
+        for (int range : new int[]{8, 100, 5_000}) {
+            fuzz(new CompactIntSet(), new TreeSet<>(), range, new Random(range));
+        }
+    }
+
+    @Test
+    void matchesTreeSetFromSortedArray() {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+        while (expected.size() < 3_000) expected.add(random.nextInt(10_000));
+        int[] sorted = new int[expected.size() + 5]; // room past size, which the set must ignore
+        int i = 0;
+        for (int element : expected) sorted[i++] = element;
+        fuzz(new CompactIntSet(sorted, expected.size()), expected, 10_000, random);
+    }
+
+    private static void fuzz(CompactIntSet set, TreeSet<Integer> expected, int range, Random random) {
+        for (int step = 0; step < STEPS; step++) {
+            int element = random.nextInt(range);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(element), set.add(element), "add " + element);
+                    break;
+                case 1:
+                    assertEquals(expected.remove(element), set.remove(element), "remove " + element);
+                    break;
+                default:
+                    assertEquals(expected.contains(element), set.contains(element), "contains " + element);
+                    break;
+            }
+            assertEquals(expected.size(), set.size());
+            if (step % 1_000 == 0) assertSameElements(expected, set);
+        }
+        assertSameElements(expected, set);
+    }
+
+    private static void assertSameElements(TreeSet<Integer> expected, CompactIntSet set) {
+        int[] actual = new int[set.size()];
+        int[] next = new int[1];
+        set.forEach(element -> actual[next[0]++] = element);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual);
+        assertEquals(expected.isEmpty(), set.isEmpty());
+    }
+}
@@ -0,0 +1,25 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Runs the same commands on four shards and on one thread; the Engine must write exactly what
+ * running them one by one writes, in every feed mode.
+ */
+class EngineTest {
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pull", "push", "hybrid"})
+    void threadedRunMatchesSerialRun(String mode) throws Exception {
+        List<String> commands = Runs.workload(19, 20_000);
+        assertEquals(Runs.main(dir, commands, mode), Runs.main(dir, commands, mode, "--threads", "4"));
+    }
+}
@@ -0,0 +1,123 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random command files and runs of Main and Server in child JVMs, for tests that stop and
+ * restart the process: users and posts live in static registries, and a snapshot only restores
+ * into an empty process.
+ */
+final class Runs {
+    private Runs() {
+    }
+
+    /**
+     * A command file over a few users and posts, so that most commands find their targets:
+     * every command type, with lookups of posts before they are created and IDs that never are.
+     */
+    static List<String> workload(long seed, int count) {
+        Random random = new Random(seed);
+        List<String> commands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) commands.add("create_user u" + i);
+        while (commands.size() < count) {
+            String user = "u" + random.nextInt(24);
+            String other = "u" + random.nextInt(24);
+            String post = "p" + random.nextInt(300);
+            int kind = random.nextInt(100);
+            if (kind < 3) commands.add("create_user " + user);
+            else if (kind < 18) commands.add("create_post " + user + " " + post + " content" + commands.size());
+            else if (kind < 32) commands.add("follow_user " + user + " " + other);
+            else if (kind < 38) commands.add("unfollow_user " + user + " " + other);
+            else if (kind < 50) commands.add("see_post " + user + " " + post);
+            else if (kind < 54) commands.add("see_all_posts_from_user " + user + " " + other);
+            else if (kind < 72) commands.add("toggle_like " + user + " " + post);
+            else if (kind < 80) commands.add("generate_feed " + user + " " + (1 + random.nextInt(8)));
+            else if (kind < 88) {
+                StringBuilder scroll = new StringBuilder("scroll_through_feed " + user);
+                int actions = random.nextInt(6);
+                scroll.append(' ').append(actions);
+                for (int a = 0; a < actions; a++) scroll.append(' ').append(random.nextInt(2));
+                commands.add(scroll.toString());
+            }
+            else if (kind < 92) commands.add("sort_posts " + user);
+            else if (kind < 96) commands.add("follower_count " + user);
+            else commands.add("following_count " + user);
+        }
+        return commands;
+    }
+
+    /**
+     * Runs the commands with Main in a new JVM.
+     * @param options Options after the input and output files, such as a feed mode or --wal.
+     * @return What Main wrote to the output file.
+     */
+    static String main(Path dir, List<String> commands, String... options) throws IOException, InterruptedException {
+        Path input = Files.createTempFile(dir, "input", ".txt");
+        Path output = Files.createTempFile(dir, "output", ".txt");
+        Files.write(input, commands);
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "instaclone.Main",
+                input.toString(), output.toString()));
+        command.addAll(List.of(options));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String console = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), console);
+        assertEquals("", console, "Main reported a problem");
+        return Files.readString(output);
+    }
+
+    /**
+     * Starts a Server in a new JVM and sends it the commands over one connection, one at a time.
+     * @param options Options after the port, such as a feed mode or --threads.
+     * @return The responses put together, each without the empty line that ends it, so the
+     *         lines Main would have written for the same commands.
+     */
+    static String server(List<String> commands, String... options) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "instaclone.Server", "0"));
+        command.addAll(List.of(options));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            BufferedReader console = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String serving = console.readLine(); // Serving on port <port> with <n> shards.
+            assertEquals("Serving", serving == null ? null : serving.split(" ")[0], serving);
+            int port = Integer.parseInt(serving.split(" ")[3]);
+            StringBuilder output = new StringBuilder();
+            try (Socket socket = new Socket("localhost", port);
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line : commands) {
+                    out.println(line);
+                    String response;
+                    while (!(response = in.readLine()).isEmpty()) output.append(response).append(System.lineSeparator());
+                }
+            }
+            return output.toString();
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * @return The three thirds of the commands.
+     */
+    static List<List<String>> thirds(List<String> commands) {
+        int a = commands.size() / 3, b = 2 * commands.size() / 3;
+        return List.of(commands.subList(0, a), commands.subList(a, b), commands.subList(b, commands.size()));
+    }
+}
@@ -0,0 +1,52 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Sends the lines of an input file to a Server and checks that it answers with what Main
+ * writes for the same file, down to lines whose spacing only the single-space split reads right,
+ * and that a dump line writes the metrics file.
+ */
+class ServerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void answersWhatMainWritesForTheSameLines() throws Exception {
+        List<String> commands = new ArrayList<>(Runs.workload(18, 3_000));
+        // empty words from doubled or trailing spaces, tabs inside words, commands after a blank
+        commands.addAll(40, List.of(
+                "create_user  u0",
+                "create_user u30 ",
+                "create_user u31\t",
+                "\tcreate_user u32",
+                " create_user u33",
+                "follow_user u1  u2",
+                "follow_user u1 ",
+                "toggle_like u3\tp2 p5",
+                "create_post u4 p900 hello  world",
+                "follower_count ",
+                "generate_feed u1 3 extra"));
+        commands.add("sort_posts  ");
+        assertEquals(Runs.main(dir, commands), Runs.server(commands, "--threads", "2"));
+    }
+
+    @Test
+    void dumpLineWritesTheMetricsFile() throws Exception {
+        Path metrics = dir.resolve("metrics.json");
+        // the server writes the file again as it stops, so nothing follows the dump
+        List<String> commands = List.of("create_user u1", "create_user u2", "dump");
+        String output = Runs.server(commands, "--threads", "2", "--metrics", metrics.toString());
+        assertTrue(output.contains("Metrics written to " + metrics + "."), output);
+        String json = Files.readString(metrics);
+        assertTrue(json.contains("\"create_user\": {\"count\": 2,"), json);
+    }
+}
@@ -0,0 +1,56 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Stops a run after each third of its commands, snapshots it and restores the snapshot in a new
+ * process for the next third; the outputs put together must be those of one uninterrupted run.
+ */
+class SnapshotTest {
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pull", "push", "hybrid"})
+    void restoredRunsMatchOneRun(String mode) throws Exception {
+        List<String> commands = Runs.workload(14, 6_000);
+        String whole = Runs.main(dir, commands, mode);
+        List<List<String>> thirds = Runs.thirds(commands);
+        Path first = dir.resolve("first.snap"), second = dir.resolve("second.snap");
+        String split = Runs.main(dir, thirds.get(0), mode, "--snapshot", first.toString())
+                + Runs.main(dir, thirds.get(1), mode, "--restore", first.toString(), "--snapshot", second.toString())
+                + Runs.main(dir, thirds.get(2), mode, "--restore", second.toString());
+        assertEquals(whole, split);
+    }
+
+    @Test
+    void snapshotCanReplaceTheOneItWasRestoredFrom() throws Exception {
+        List<String> commands = Runs.workload(15, 3_000);
+        List<List<String>> thirds = Runs.thirds(commands);
+        Path snapshot = dir.resolve("state.snap");
+        String split = Runs.main(dir, thirds.get(0), "--snapshot", snapshot.toString())
+                + Runs.main(dir, thirds.get(1), "--restore", snapshot.toString(), "--snapshot", snapshot.toString())
+                + Runs.main(dir, thirds.get(2), "--restore", snapshot.toString());
+        assertEquals(Runs.main(dir, commands), split);
+        assertFalse(Files.exists(dir.resolve("state.snap.tmp")));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = dir.resolve("not.snap");
+        Files.writeString(file, "create_user u1\n");
+        IOException e = assertThrows(IOException.class, () -> Snapshot.restore(file));
+        assertEquals("Not a snapshot file", e.getMessage());
+    }
+}
@@ -0,0 +1,83 @@
+package instaclone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Recovers runs from the log, alone and on top of a snapshot, in new processes, and checks that
+ * the outputs put together are those of one uninterrupted run.
+ */
+class WriteAheadLogTest {
+    private static final int FILE_HEADER = 12;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pull", "push", "hybrid"})
+    void recoveredRunsMatchOneRun(String mode) throws Exception {
+        List<String> commands = Runs.workload(15, 6_000);
+        List<List<String>> thirds = Runs.thirds(commands);
+        Path log = dir.resolve("commands.log"), snapshot = dir.resolve("state.snap");
+        String first = Runs.main(dir, thirds.get(0), mode, "--wal", log.toString(), "--sync-records", "100");
+        // as after a crash: the log alone brings the state back, then a snapshot takes it over
+        String second = Runs.main(dir, thirds.get(1), mode, "--wal", log.toString(), "--sync-millis", "5",
+                "--snapshot", snapshot.toString());
+        assertEquals(FILE_HEADER, Files.size(log), "checkpoint left records in the log");
+        String third = Runs.main(dir, thirds.get(2), mode, "--restore", snapshot.toString(), "--wal", log.toString());
+        assertEquals(Runs.main(dir, commands, mode), first + second + third);
+    }
+
+    @Test
+    void crashBeforeCheckpointDoesNotReplayWhatTheSnapshotHolds() throws Exception {
+        List<String> commands = Runs.workload(16, 6_000);
+        List<List<String>> thirds = Runs.thirds(commands);
+        Path log = dir.resolve("commands.log"), snapshot = dir.resolve("state.snap");
+        String first = Runs.main(dir, thirds.get(0), "--wal", log.toString());
+        String second = Runs.main(dir, thirds.get(1), "--wal", log.toString());
+        byte[] beforeCheckpoint = Files.readAllBytes(log);
+        Runs.main(dir, List.of(), "--wal", log.toString(), "--snapshot", snapshot.toString());
+        // the process died after writing the snapshot and before emptying the log
+        Files.write(log, beforeCheckpoint);
+        String third = Runs.main(dir, thirds.get(2), "--restore", snapshot.toString(), "--wal", log.toString());
+        assertEquals(Runs.main(dir, commands), first + second + third);
+    }
+
+    @Test
+    void tornTailIsCutOff() throws Exception {
+        List<String> commands = Runs.workload(17, 4_000);
+        List<String> before = commands.subList(0, 2_000), after = commands.subList(2_000, commands.size());
+        Path log = dir.resolve("commands.log");
+        String first = Runs.main(dir, before, "--wal", log.toString());
+        long complete = Files.size(log);
+        // a record cut short: its header promises more payload than made it to disk
+        ByteBuffer torn = ByteBuffer.allocate(11).order(ByteOrder.LITTLE_ENDIAN);
+        torn.putInt(100).putInt(0x12345678).put((byte) Command.CREATE_USER.ordinal()).put((byte) 1).put((byte) 2);
+        Files.write(log, torn.array(), StandardOpenOption.APPEND);
+        String second = Runs.main(dir, after, "--wal", log.toString());
+        assertEquals(Runs.main(dir, commands), first + second);
+        assertTrue(Files.size(log) > complete, "records after the cut were not logged");
+    }
+
+    @Test
+    void idleTailIsForcedWithinSyncMillis() throws Exception {
+        Path log = dir.resolve("idle.log");
+        try (WriteAheadLog wal = new WriteAheadLog(log, 0, 20)) {
+            wal.append(Command.CREATE_USER, "u1");
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (Files.size(log) == FILE_HEADER && System.nanoTime() < deadline) Thread.sleep(10);
+            assertTrue(Files.size(log) > FILE_HEADER, "record still buffered with no appends after it");
+        }
+    }
+}